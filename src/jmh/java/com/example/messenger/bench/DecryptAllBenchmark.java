@@ -0,0 +1,81 @@
+package com.example.messenger.bench;
+
+import com.example.messenger.crypto.AesGcmMessageCrypto;
+import com.example.messenger.crypto.Ed448MessageCrypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decrypting one history page: one {@code decryptBytes} call per message against a single
+ * {@code decryptAll} call, sequential and on the crypto pool. Use it to pick
+ * {@code crypto.parallel-decrypt-threshold} for the target hardware.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecryptAllBenchmark {
+
+    private static final long CONVERSATION_ID = 42L;
+    private static final byte[] MASTER_KEY = "benchmark-master-key-of-at-least-32-bytes".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"10", "50", "100"})
+    public int pageSize;
+
+    @Param({"256"})
+    public int bodyLength;
+
+    private ForkJoinPool pool;
+    private AesGcmMessageCrypto sequential;
+    private AesGcmMessageCrypto parallel;
+    private List<byte[]> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+        sequential = new AesGcmMessageCrypto(MASTER_KEY, 1024, new Ed448MessageCrypto());
+        parallel = new AesGcmMessageCrypto(MASTER_KEY, 1024, new Ed448MessageCrypto(), pool, 1);
+        String body = "m".repeat(bodyLength);
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(sequential.encryptBytes(CONVERSATION_ID, body));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<String> perMessage() {
+        List<String> bodies = new ArrayList<>(page.size());
+        for (byte[] envelope : page) {
+            bodies.add(sequential.decryptBytes(CONVERSATION_ID, envelope));
+        }
+        return bodies;
+    }
+
+    @Benchmark
+    public List<String> decryptAllSequential() {
+        return sequential.decryptAll(CONVERSATION_ID, page);
+    }
+
+    @Benchmark
+    public List<String> decryptAllParallel() {
+        return parallel.decryptAll(CONVERSATION_ID, page);
+    }
+}
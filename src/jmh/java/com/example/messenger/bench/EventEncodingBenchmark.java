@@ -0,0 +1,65 @@
+package com.example.messenger.bench;
+
+import com.example.messenger.dto.WebSocketMessage;
+import com.example.messenger.websocket.BinaryEventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode cost of one event frame: the default JSON {@link WebSocketMessage} text path (payload
+ * embedded as an escaped JSON string) versus {@link BinaryEventCodec} (payload embedded as raw JSON bytes).
+ * Frame sizes for each body length are printed once at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventEncodingBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int bodyLength;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String payloadJson;
+    private byte[] payloadBytes;
+    private Instant createdAt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String body = "x".repeat(bodyLength);
+        payloadJson = objectMapper.writeValueAsString(Map.of(
+                "id", 123456L,
+                "conversationId", 42L,
+                "senderId", 7L,
+                "body", body,
+                "createdAt", "2026-01-01T12:00:00Z"
+        ));
+        payloadBytes = payloadJson.getBytes(StandardCharsets.UTF_8);
+        createdAt = Instant.parse("2026-01-01T12:00:00Z");
+        System.out.printf("%nbodyLength=%d json=%d bytes binary=%d bytes%n",
+                bodyLength, encodeJson().length, encodeBinary().length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws Exception {
+        WebSocketMessage msg = new WebSocketMessage(987654321L, 42L, "message", payloadJson, createdAt.toString());
+        return objectMapper.writeValueAsBytes(msg);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return BinaryEventCodec.encode(987654321L, 42L, createdAt, "message", payloadBytes);
+    }
+}
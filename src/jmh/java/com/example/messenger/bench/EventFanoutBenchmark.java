@@ -0,0 +1,126 @@
+package com.example.messenger.bench;
+
+import com.example.messenger.config.JacksonConfig;
+import com.example.messenger.config.JsonWriters;
+import com.example.messenger.config.WebSocketSessionConfig;
+import com.example.messenger.domain.Event;
+import com.example.messenger.dto.MessageEventPayload;
+import com.example.messenger.repository.ConversationParticipantRepository;
+import com.example.messenger.repository.EventRepository;
+import com.example.messenger.service.DeliveryMetrics;
+import com.example.messenger.service.EventService;
+import com.example.messenger.websocket.SessionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EventService#publish} end to end, minus the database: payload serialization, frame
+ * encoding and fan-out to {@code recipients} users with {@code sessionsPerUser} sessions each.
+ * Repositories are in-memory stubs and sessions are {@link NoopWebSocketSession}s; sends run inline
+ * as in platform-thread mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventFanoutBenchmark {
+
+    private static final long CONVERSATION_ID = 42L;
+
+    @Param({"2", "50", "500"})
+    public int recipients;
+
+    @Param({"1", "3"})
+    public int sessionsPerUser;
+
+    private EventService eventService;
+    private MessageEventPayload payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebSocketSessionConfig sessionConfig = new WebSocketSessionConfig();
+        SessionRegistry sessionRegistry = new SessionRegistry(sessionConfig, meterRegistry);
+        List<Long> userIds = new ArrayList<>();
+        for (long userId = 1; userId <= recipients; userId++) {
+            userIds.add(userId);
+        }
+        eventService = new EventService(
+                eventRepository(),
+                participantRepository(userIds),
+                new JsonWriters(JacksonConfig.create(false)),
+                new SyncTaskExecutor(),
+                sessionConfig,
+                sessionRegistry,
+                new DeliveryMetrics(meterRegistry),
+                meterRegistry
+        );
+        for (Long userId : userIds) {
+            for (int s = 0; s < sessionsPerUser; s++) {
+                eventService.registerSession(userId, new NoopWebSocketSession(userId + "-" + s));
+            }
+        }
+        payload = new MessageEventPayload(1L, 1L, "alice", "Hello, how are you doing today?", "2026-01-01T12:00:00Z");
+    }
+
+    @Benchmark
+    public void publish() {
+        eventService.publish(CONVERSATION_ID, "message", payload);
+    }
+
+    /** EventRepository whose save assigns an id and returns the entity. */
+    private static EventRepository eventRepository() throws Exception {
+        Field idField = Event.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        AtomicLong ids = new AtomicLong();
+        return stub(EventRepository.class, (method, args) -> {
+            if (method.equals("save")) {
+                idField.set(args[0], ids.incrementAndGet());
+                return args[0];
+            }
+            return null;
+        });
+    }
+
+    private static ConversationParticipantRepository participantRepository(List<Long> userIds) {
+        return stub(ConversationParticipantRepository.class, (method, args) ->
+                method.equals("findUserIdsByConversationId") ? userIds : null);
+    }
+
+    private interface StubMethod {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, StubMethod handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName() + "Stub";
+                };
+            }
+            Object result = handler.invoke(method.getName(), args);
+            if (result == null) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.messenger.bench;
+
+import com.example.messenger.config.JacksonConfig;
+import com.example.messenger.config.JsonWriters;
+import com.example.messenger.dto.MessageEventPayload;
+import com.example.messenger.dto.WebSocketMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializer throughput for one message event, with and without Blackbird:
+ * <ul>
+ *   <li>{@code legacyMapPath}: the former path, ad-hoc {@code Map} to String, then the frame to String</li>
+ *   <li>{@code writerPath}: typed payload through a precomputed writer, frame to String, as delivered</li>
+ *   <li>{@code writerBytesPath}: as {@code writerPath}, but the frame written as bytes and wrapped in a
+ *       {@link TextMessage}, which decodes them back to a String</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsonSerializationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean blackbird;
+
+    private ObjectMapper objectMapper;
+    private JsonWriters jsonWriters;
+    private MessageEventPayload payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = JacksonConfig.create(blackbird);
+        jsonWriters = new JsonWriters(objectMapper);
+        payload = new MessageEventPayload(123456L, 7L, "alice", "Hello, how are you doing today?", "2026-01-01T12:00:00Z");
+    }
+
+    @Benchmark
+    public String legacyMapPath() throws Exception {
+        String payloadJson = objectMapper.writeValueAsString(Map.of(
+                "id", payload.id(),
+                "senderId", payload.senderId(),
+                "senderUsername", payload.senderUsername(),
+                "body", payload.body(),
+                "createdAt", payload.createdAt()
+        ));
+        return objectMapper.writeValueAsString(Map.of(
+                "eventId", 987654321L,
+                "conversationId", 42L,
+                "type", "message",
+                "payload", payloadJson,
+                "createdAt", "2026-01-01T12:00:00Z"
+        ));
+    }
+
+    @Benchmark
+    public TextMessage writerPath() throws Exception {
+        String payloadJson = jsonWriters.messageEventPayload().writeValueAsString(payload);
+        WebSocketMessage msg = new WebSocketMessage(987654321L, 42L, "message", payloadJson, "2026-01-01T12:00:00Z");
+        return new TextMessage(jsonWriters.webSocketMessage().writeValueAsString(msg));
+    }
+
+    @Benchmark
+    public TextMessage writerBytesPath() throws Exception {
+        String payloadJson = jsonWriters.messageEventPayload().writeValueAsString(payload);
+        WebSocketMessage msg = new WebSocketMessage(987654321L, 42L, "message", payloadJson, "2026-01-01T12:00:00Z");
+        return new TextMessage(jsonWriters.webSocketMessage().writeValueAsBytes(msg));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.messenger.bench;
+
+import com.example.messenger.config.JwtConfig;
+import com.example.messenger.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing and checking access tokens; parse/validate runs on every authenticated request
+ * and WebSocket handshake.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private UserDetails user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret("benchmark-secret-key-must-be-at-least-32-characters-long");
+        tokenProvider = new JwtTokenProvider(config);
+        user = User.withUsername("alice").password("unused").authorities(List.of()).build();
+        token = tokenProvider.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String generate() {
+        return tokenProvider.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String parseUsername() {
+        return tokenProvider.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public Boolean validate() {
+        return tokenProvider.validateToken(token, user);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.messenger.bench;
+
+import com.example.messenger.crypto.AesGcmMessageCrypto;
+import com.example.messenger.crypto.Ed448MessageCrypto;
+import com.example.messenger.crypto.MessageCrypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of the message body encryption used on send and list: the {@code ED448v1|}
+ * placeholder against AES-GCM with cached per-conversation keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageCryptoBenchmark {
+
+    private static final long CONVERSATION_ID = 42L;
+    private static final byte[] MASTER_KEY = "benchmark-master-key-of-at-least-32-bytes".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"placeholder", "aes-gcm"})
+    public String impl;
+
+    @Param({"32", "1024", "16384"})
+    public int bodyLength;
+
+    private MessageCrypto crypto;
+    private String plaintext;
+    private String ciphertext;
+    private byte[] envelope;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        crypto = switch (impl) {
+            case "placeholder" -> new Ed448MessageCrypto();
+            case "aes-gcm" -> new AesGcmMessageCrypto(MASTER_KEY, 1024, new Ed448MessageCrypto());
+            default -> throw new IllegalArgumentException(impl);
+        };
+        plaintext = "m".repeat(bodyLength);
+        ciphertext = crypto.encrypt(CONVERSATION_ID, plaintext);
+        envelope = crypto.encryptBytes(CONVERSATION_ID, plaintext);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return crypto.encrypt(CONVERSATION_ID, plaintext);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return crypto.decrypt(CONVERSATION_ID, ciphertext);
+    }
+
+    /** Binary form stored in {@code message.body}; no Base64 step. */
+    @Benchmark
+    public byte[] encryptBytes() {
+        return crypto.encryptBytes(CONVERSATION_ID, plaintext);
+    }
+
+    @Benchmark
+    public String decryptBytes() {
+        return crypto.decryptBytes(CONVERSATION_ID, envelope);
+    }
+}
@@ -10,6 +10,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
 @RestController
 @RequestMapping("/api/v1/auth")
 public class AuthController {
@@ -32,16 +37,25 @@ public class AuthController {
         }
     }
 
+    /** Completes asynchronously: the request thread is released while the password is verified. */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request) {
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody AuthRequest request) {
         try {
-            AuthResponse response = authService.login(request);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            return authService.loginAsync(request)
+                    .thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> ResponseEntity.status(loginFailureStatus(e)).build());
+        } catch (RejectedExecutionException e) {
+            // Auth pool saturated (login storm): ask the client to retry later
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
         }
     }
 
+    /** 503 when the login timed out waiting for the auth pool, 401 for any other failure. */
+    private static HttpStatus loginFailureStatus(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return cause instanceof TimeoutException ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.UNAUTHORIZED;
+    }
+
     @PostMapping("/refresh")
     public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody TokenRefreshRequest request) {
         try {
@@ -18,6 +18,7 @@ import java.util.List;
 public class MessagingController {
     private static final int DEFAULT_PAGE_SIZE = 50;
     private static final int MAX_PAGE_SIZE = 100;
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
     private final MessageService service;
 
@@ -31,12 +32,37 @@ public class MessagingController {
         return ResponseEntity.ok(conversations);
     }
 
+    /** A retry with the same {@code Idempotency-Key} returns the conversation created by the first request. */
     @PostMapping("/conversations")
-    public ResponseEntity<Conversation> createConversation(@Valid @RequestBody CreateConversationRequest request) {
-        Conversation conversation = service.createConversation(request);
+    public ResponseEntity<Conversation> createConversation(
+            @Valid @RequestBody CreateConversationRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal AppUser currentUser
+    ) {
+        Conversation conversation = service.createConversation(request, currentUser.getId(), idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(conversation);
     }
 
+    /** Adds the listed users to a group; users who are already members are skipped. */
+    @PostMapping("/conversations/{id}/participants")
+    public ResponseEntity<MembershipEventPayload> addParticipants(
+            @PathVariable Long id,
+            @Valid @RequestBody ParticipantsRequest request,
+            @AuthenticationPrincipal AppUser currentUser
+    ) {
+        return ResponseEntity.ok(service.addParticipants(id, currentUser.getId(), request.getUserIds()));
+    }
+
+    /** Removes the listed users from a group; users who are not members are ignored. */
+    @DeleteMapping("/conversations/{id}/participants")
+    public ResponseEntity<MembershipEventPayload> removeParticipants(
+            @PathVariable Long id,
+            @Valid @RequestBody ParticipantsRequest request,
+            @AuthenticationPrincipal AppUser currentUser
+    ) {
+        return ResponseEntity.ok(service.removeParticipants(id, currentUser.getId(), request.getUserIds()));
+    }
+
     @PostMapping("/conversations/{id}/messages")
     public ResponseEntity<MessageResponse> sendMessage(
             @PathVariable Long id,
@@ -57,6 +83,17 @@ public class MessagingController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /** Deletes one of the caller's own messages; repeating the request is a no-op. */
+    @DeleteMapping("/conversations/{id}/messages/{messageId}")
+    public ResponseEntity<Void> deleteMessage(
+            @PathVariable Long id,
+            @PathVariable Long messageId,
+            @AuthenticationPrincipal AppUser currentUser
+    ) {
+        service.deleteMessage(id, messageId, currentUser.getId());
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/conversations/{id}/messages")
     public ResponseEntity<PaginatedResponse<MessageResponse>> listMessages(
             @PathVariable Long id,
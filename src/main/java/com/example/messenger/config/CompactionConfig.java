@@ -0,0 +1,64 @@
+package com.example.messenger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for the background job that scrubs the bodies of deleted messages
+ * ({@code MessageCompactionService}).
+ *
+ * <p>Deleting a message only writes a tombstone; this job later replaces the encrypted body with an
+ * empty one, {@link #getBatchSize()} rows per statement, and stops after {@link #getMaxBatchesPerRun()}
+ * batches so a burst of deletions is worked off over several runs instead of one long lock-holding
+ * pass. The rows themselves stay, so message ids, cursors and event resume are unaffected.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "compaction")
+public class CompactionConfig {
+
+    private boolean enabled = true;
+    private long intervalMs = 300000; // 5 minutes
+    private long initialDelayMs = 180000; // 3 minutes after startup
+    private int batchSize = 500;
+    private int maxBatchesPerRun = 20;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public long getInitialDelayMs() {
+        return initialDelayMs;
+    }
+
+    public void setInitialDelayMs(long initialDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxBatchesPerRun() {
+        return maxBatchesPerRun;
+    }
+
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.messenger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Message body encryption settings ({@code AesGcmMessageCrypto}).
+ *
+ * <p>{@code master-key} is Base64 input keying material of at least 32 bytes; each conversation's
+ * AES-256 key is derived from it with HKDF-SHA256, so only this one secret needs to be managed. Derived
+ * keys are kept in an LRU cache of {@code key-cache-size} conversations; a miss costs one HKDF
+ * derivation (two HMACs), so the cache only needs to cover the conversations that are active at once.
+ *
+ * <p>Key rotation: {@code master-key} is key id 1. Further keys go in {@code keys} (id to Base64 key) and
+ * {@code active-key-id} selects the one new messages are encrypted with; all others remain decrypt-only
+ * until the re-encryption job ({@link ReencryptionConfig}) has rewritten the messages still using them.
+ *
+ * <p>History pages are decrypted with {@code MessageCrypto.decryptAll}. Pages of at least
+ * {@code parallel-decrypt-threshold} messages are split across the {@code cryptoPool} ForkJoin pool
+ * of {@code decrypt-parallelism} workers; smaller pages stay on the request thread, where the fork/join
+ * hand-off would cost more than the AES work it spreads.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "crypto")
+public class CryptoConfig {
+
+    // Development default only - in production set MESSAGE_MASTER_KEY to 32+ random bytes, Base64-encoded
+    private String masterKey = "bWVzc2VuZ2VyLWRldi1tYXN0ZXIta2V5LWNoYW5nZS1pbi1wcm9kdWN0aW9u";
+    private Map<Integer, String> keys = new HashMap<>();
+    private int activeKeyId = 1;
+    private int keyCacheSize = 10000;
+    private int parallelDecryptThreshold = 64;
+    private int decryptParallelism = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    public String getMasterKey() {
+        return masterKey;
+    }
+
+    public void setMasterKey(String masterKey) {
+        this.masterKey = masterKey;
+    }
+
+    public Map<Integer, String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(Map<Integer, String> keys) {
+        this.keys = keys;
+    }
+
+    public int getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public void setActiveKeyId(int activeKeyId) {
+        this.activeKeyId = activeKeyId;
+    }
+
+    public int getKeyCacheSize() {
+        return keyCacheSize;
+    }
+
+    public void setKeyCacheSize(int keyCacheSize) {
+        this.keyCacheSize = keyCacheSize;
+    }
+
+    public int getParallelDecryptThreshold() {
+        return parallelDecryptThreshold;
+    }
+
+    public void setParallelDecryptThreshold(int parallelDecryptThreshold) {
+        this.parallelDecryptThreshold = parallelDecryptThreshold;
+    }
+
+    public int getDecryptParallelism() {
+        return decryptParallelism;
+    }
+
+    public void setDecryptParallelism(int decryptParallelism) {
+        this.decryptParallelism = decryptParallelism;
+    }
+}
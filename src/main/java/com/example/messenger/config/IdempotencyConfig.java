@@ -0,0 +1,37 @@
+package com.example.messenger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-memory dedup window for idempotent writes ({@code IdempotencyWindow}).
+ *
+ * <p>Results of keyed requests are remembered on the node that served them for
+ * {@link #getWindowMs()}, so a client retrying within that time is answered without touching the
+ * database. The window holds at most {@link #getWindowSize()} entries (oldest dropped first). It is an
+ * optimization only: retries that miss it, or land on another node, are deduplicated by the database.
+ * A window of 0 disables it.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyConfig {
+
+    private long windowMs = 30000; // 30 seconds
+    private int windowSize = 10000;
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    public void setWindowMs(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+}
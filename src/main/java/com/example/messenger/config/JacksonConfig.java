@@ -1,14 +1,41 @@
 package com.example.messenger.config;
 
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
+import java.util.List;
+
+/**
+ * Shared {@link ObjectMapper} for the WebSocket/event hot paths (see {@code JsonWriters}).
+ *
+ * <p>Modules on the classpath are registered as before, except Blackbird, which replaces
+ * reflective getter calls with generated lambdas and is opt-in via
+ * {@code jackson.blackbird.enabled=true}. Compare both settings with the {@code JsonSerializationBenchmark}
+ * JMH suite before enabling it in production.
+ */
 @Configuration
 public class JacksonConfig {
 
+    static final String BLACKBIRD_PROPERTY = "jackson.blackbird.enabled";
+
     @Bean
-    public ObjectMapper objectMapper() {
-        return new ObjectMapper().findAndRegisterModules();
+    public ObjectMapper objectMapper(Environment environment) {
+        return create(environment.getProperty(BLACKBIRD_PROPERTY, Boolean.class, false));
+    }
+
+    /** Builds the mapper with or without Blackbird; also used by the benchmarks. */
+    public static ObjectMapper create(boolean blackbird) {
+        List<Module> modules = ObjectMapper.findModules().stream()
+                .filter(module -> !(module instanceof BlackbirdModule))
+                .toList();
+        ObjectMapper mapper = new ObjectMapper().registerModules(modules);
+        if (blackbird) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+        return mapper;
     }
 }
@@ -0,0 +1,56 @@
+package com.example.messenger.config;
+
+import com.example.messenger.dto.MessageEventPayload;
+import com.example.messenger.dto.WebSocketMessage;
+import com.example.messenger.dto.WebSocketMessageV2;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed {@link ObjectWriter}s for types serialized on every published event.
+ *
+ * <p>A writer bound to a concrete type resolves its serializer once, so each write skips the
+ * per-call root type lookup that {@code ObjectMapper.writeValueAs*} performs. Writers are immutable
+ * and thread-safe. Payload types without a dedicated writer are cached by class in
+ * {@link #forType(Class)}.
+ */
+@Component
+public class JsonWriters {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter webSocketMessage;
+    private final ObjectWriter webSocketMessageV2;
+    private final ObjectWriter messageEventPayload;
+    private final Map<Class<?>, ObjectWriter> byType = new ConcurrentHashMap<>();
+
+    public JsonWriters(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.webSocketMessage = objectMapper.writerFor(WebSocketMessage.class);
+        this.webSocketMessageV2 = objectMapper.writerFor(WebSocketMessageV2.class);
+        this.messageEventPayload = objectMapper.writerFor(MessageEventPayload.class);
+        byType.put(WebSocketMessage.class, webSocketMessage);
+        byType.put(WebSocketMessageV2.class, webSocketMessageV2);
+        byType.put(MessageEventPayload.class, messageEventPayload);
+    }
+
+    public ObjectWriter webSocketMessage() {
+        return webSocketMessage;
+    }
+
+    public ObjectWriter webSocketMessageV2() {
+        return webSocketMessageV2;
+    }
+
+    public ObjectWriter messageEventPayload() {
+        return messageEventPayload;
+    }
+
+    /** Returns a writer bound to {@code type}, creating and caching it on first use. */
+    public ObjectWriter forType(Class<?> type) {
+        return byType.computeIfAbsent(type, objectMapper::writerFor);
+    }
+}
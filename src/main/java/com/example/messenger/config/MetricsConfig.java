@@ -1,6 +1,6 @@
 package com.example.messenger.config;
 
-import com.example.messenger.service.EventService;
+import com.example.messenger.websocket.SessionRegistry;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.context.annotation.Bean;
@@ -16,22 +16,66 @@ import org.springframework.context.annotation.Configuration;
  * <ul>
  *   <li>{@code messenger.messages.sent} (counter) — total messages sent, recorded by {@code MessageService}</li>
  *   <li>{@code messenger.messages.send.duration} (timer) — message send latency, recorded by {@code MessageService}</li>
- *   <li>{@code messenger.websocket.connections} (gauge) — active WebSocket connections, read from {@code EventService}</li>
+ *   <li>{@code messenger.messages.deleted} (counter) — messages tombstoned by their sender, recorded by {@code MessageService}</li>
+ *   <li>{@code messenger.messages.compacted} (counter) — deleted message bodies scrubbed, and
+ *       {@code messenger.messages.compaction.run.duration} (timer), recorded by {@code MessageCompactionService}</li>
+ *   <li>{@code messenger.messages.idempotent.replays} (counter, tag {@code source}: window|database) — keyed sends
+ *       answered with an earlier message, recorded by {@code MessageService}</li>
+ *   <li>{@code messenger.websocket.connections} (gauge, tag {@code node}) — active WebSocket connections on this node,
+ *       read from {@code SessionRegistry}</li>
+ *   <li>{@code messenger.websocket.users} (gauge, tag {@code node}) — distinct connected users on this node</li>
+ *   <li>{@code messenger.websocket.sessions.per.user.max} (gauge, tag {@code node}) — most sessions held by one user</li>
+ *   <li>{@code messenger.websocket.connects} / {@code messenger.websocket.disconnects} (counters, tag {@code node}) —
+ *       session registrations and removals, recorded by {@code SessionRegistry}; use their rate for churn</li>
+ *   <li>{@code messenger.websocket.payload.bytes} (counter, tags {@code direction}, {@code negotiated_compression}:
+ *       deflate|none) — payload bytes before compression, split by whether permessage-deflate was negotiated,
+ *       recorded by {@code EventService}; compressed wire bytes are not visible to the application</li>
+ *   <li>{@code messenger.websocket.session.payload.bytes} (distribution summary, tag {@code direction}) — payload
+ *       bytes before compression per connection over its lifetime, recorded by {@code SessionRegistry}</li>
+ *   <li>{@code messenger.websocket.sessions.reaped} (counter, tag {@code node}) — closed or silent sessions evicted by
+ *       {@code SessionHeartbeatService}</li>
  *   <li>{@code messenger.events.published} (counter) — total events published, recorded by {@code EventService}</li>
+ *   <li>{@code messenger.delivery.latency} (timer, histogram, tag {@code conversation_type}) — event persisted until
+ *       its frame is written to each recipient session, recorded by {@code DeliveryMetrics}</li>
+ *   <li>{@code messenger.delivery.stage} (timer, histogram, tags {@code stage}, {@code conversation_type}) — persist,
+ *       lookup, serialize and write stages of event delivery</li>
+ *   <li>{@code messenger.websocket.send.duration} (timer) — time to write or buffer one frame, recorded by {@code EventService}</li>
+ *   <li>{@code messenger.websocket.send.buffer} (distribution summary) — bytes buffered per session after each send</li>
+ *   <li>{@code messenger.websocket.overflow.closed} (counter) — sessions closed for exceeding send limits</li>
+ *   <li>{@code messenger.retention.rows.purged} (counter, tag {@code table}) — rows deleted by {@code RetentionService}</li>
+ *   <li>{@code messenger.retention.run.duration} (timer) — duration of each retention run, recorded by {@code RetentionService}</li>
+ *   <li>{@code messenger.partitions.created} / {@code messenger.partitions.dropped} (counters) — monthly partition
+ *       maintenance, recorded by {@code PartitionMaintenanceService}</li>
+ *   <li>{@code messenger.crypto.reencrypted} (counter) — message bodies moved onto the active key,
+ *       {@code messenger.crypto.reencryption.failed} (counter) — bodies skipped because they could not be decrypted,
+ *       and {@code messenger.crypto.reencryption.run.duration} (timer), recorded by {@code ReencryptionService}</li>
+ *   <li>{@code messenger.db.query}, {@code messenger.db.request.*} — JDBC statements, rows and time per endpoint and
+ *       repository method; see {@link QueryMetricsConfig}</li>
  * </ul>
  */
 @Configuration
 public class MetricsConfig {
 
     /**
-     * Registers a gauge that tracks the number of active WebSocket connections.
-     * The gauge reads from {@link EventService#getActiveConnectionCount()} on each scrape.
+     * Registers gauges for WebSocket sessions on this node. Each reads a counter that
+     * {@link SessionRegistry} maintains on register/unregister, so a scrape is O(1).
      */
     @Bean
-    public MeterBinder webSocketConnectionsMetrics(EventService eventService) {
-        return registry -> Gauge.builder("messenger.websocket.connections",
-                        eventService, EventService::getActiveConnectionCount)
-                .description("Number of active WebSocket connections")
-                .register(registry);
+    public MeterBinder webSocketConnectionsMetrics(SessionRegistry sessionRegistry, WebSocketSessionConfig sessionConfig) {
+        String node = sessionConfig.getNodeId();
+        return registry -> {
+            Gauge.builder("messenger.websocket.connections", sessionRegistry, SessionRegistry::getConnectionCount)
+                    .description("Number of active WebSocket connections")
+                    .tag("node", node)
+                    .register(registry);
+            Gauge.builder("messenger.websocket.users", sessionRegistry, SessionRegistry::getUserCount)
+                    .description("Number of distinct users with at least one WebSocket connection")
+                    .tag("node", node)
+                    .register(registry);
+            Gauge.builder("messenger.websocket.sessions.per.user.max", sessionRegistry, SessionRegistry::getMaxSessionsPerUser)
+                    .description("Largest number of WebSocket connections held by a single user")
+                    .tag("node", node)
+                    .register(registry);
+        };
     }
 }
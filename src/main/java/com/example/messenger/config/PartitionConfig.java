@@ -0,0 +1,51 @@
+package com.example.messenger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for monthly partition maintenance of the {@code message} and {@code event} tables
+ * ({@code PartitionMaintenanceService}). Only takes effect on PostgreSQL where the tables are
+ * declaratively partitioned (migration V4).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "partitioning")
+public class PartitionConfig {
+
+    private boolean enabled = true;
+    private long intervalMs = 86400000; // daily
+    private long initialDelayMs = 0; // run at startup
+    private int monthsAhead = 3;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public long getInitialDelayMs() {
+        return initialDelayMs;
+    }
+
+    public void setInitialDelayMs(long initialDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+    }
+
+    public int getMonthsAhead() {
+        return monthsAhead;
+    }
+
+    public void setMonthsAhead(int monthsAhead) {
+        this.monthsAhead = monthsAhead;
+    }
+}
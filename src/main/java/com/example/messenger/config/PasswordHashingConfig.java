@@ -0,0 +1,114 @@
+package com.example.messenger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Password hashing and login-path settings.
+ *
+ * <p>{@code encoder} selects the algorithm used for new hashes ({@code bcrypt} or {@code argon2}).
+ * Existing hashes made with another algorithm or different cost parameters still verify, and are
+ * re-hashed with the current settings on the user's next successful login, so the cost can be
+ * tuned up or down without a migration.
+ *
+ * <p>Logins are verified on a dedicated pool of {@code auth-threads} threads with a queue of
+ * {@code auth-queue-capacity}; when both are full further logins are rejected immediately
+ * (HTTP 503) instead of piling up on the request threads. The login endpoint is asynchronous, so the
+ * request thread is released while a login waits; one that has not finished within
+ * {@code auth-timeout-ms} also gets 503.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "security.password")
+public class PasswordHashingConfig {
+
+    private String encoder = "bcrypt";
+    private int bcryptStrength = 10;
+    private int argon2SaltLength = 16;
+    private int argon2HashLength = 32;
+    private int argon2Parallelism = 1;
+    private int argon2MemoryKb = 16384; // 16 MiB
+    private int argon2Iterations = 2;
+    private int authThreads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    private int authQueueCapacity = 200;
+    private long authTimeoutMs = 10_000;
+
+    public String getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(String encoder) {
+        this.encoder = encoder;
+    }
+
+    public int getBcryptStrength() {
+        return bcryptStrength;
+    }
+
+    public void setBcryptStrength(int bcryptStrength) {
+        this.bcryptStrength = bcryptStrength;
+    }
+
+    public int getArgon2SaltLength() {
+        return argon2SaltLength;
+    }
+
+    public void setArgon2SaltLength(int argon2SaltLength) {
+        this.argon2SaltLength = argon2SaltLength;
+    }
+
+    public int getArgon2HashLength() {
+        return argon2HashLength;
+    }
+
+    public void setArgon2HashLength(int argon2HashLength) {
+        this.argon2HashLength = argon2HashLength;
+    }
+
+    public int getArgon2Parallelism() {
+        return argon2Parallelism;
+    }
+
+    public void setArgon2Parallelism(int argon2Parallelism) {
+        this.argon2Parallelism = argon2Parallelism;
+    }
+
+    public int getArgon2MemoryKb() {
+        return argon2MemoryKb;
+    }
+
+    public void setArgon2MemoryKb(int argon2MemoryKb) {
+        this.argon2MemoryKb = argon2MemoryKb;
+    }
+
+    public int getArgon2Iterations() {
+        return argon2Iterations;
+    }
+
+    public void setArgon2Iterations(int argon2Iterations) {
+        this.argon2Iterations = argon2Iterations;
+    }
+
+    public int getAuthThreads() {
+        return authThreads;
+    }
+
+    public void setAuthThreads(int authThreads) {
+        this.authThreads = authThreads;
+    }
+
+    public int getAuthQueueCapacity() {
+        return authQueueCapacity;
+    }
+
+    public void setAuthQueueCapacity(int authQueueCapacity) {
+        this.authQueueCapacity = authQueueCapacity;
+    }
+
+    public long getAuthTimeoutMs() {
+        return authTimeoutMs;
+    }
+
+    public void setAuthTimeoutMs(long authTimeoutMs) {
+        this.authTimeoutMs = authTimeoutMs;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.messenger.config;
+
+/**
+ * Per-thread tally of JDBC work, fed by the datasource proxy in {@link QueryMetricsConfig}.
+ *
+ * <p>Counts accumulate on the current thread until {@link #reset()}; the MVC interceptor resets at
+ * the start of each request and reads the totals when it completes. The endpoint and repository-method
+ * labels are attached to every statement's {@code messenger.db.query} timer. Statement time is measured
+ * here with {@code System.nanoTime()}: the proxy's own elapsed time is in whole milliseconds, which
+ * rounds most statements to zero.
+ *
+ * <p>Work handed to another thread is not part of the request's totals. Executors that run request
+ * work (the auth executor) decorate their tasks with {@link #propagateEndpoint}, so at least the
+ * per-statement timers stay attributed to the endpoint.
+ */
+public final class QueryCounter {
+
+    static final String NONE = "none";
+
+    private static final ThreadLocal<QueryCounter> CURRENT = ThreadLocal.withInitial(QueryCounter::new);
+
+    private long statements;
+    private long rows;
+    private long elapsedNanos;
+    private long statementStartedNanos;
+    private String endpoint = NONE;
+    private String repositoryMethod = NONE;
+
+    private QueryCounter() {
+    }
+
+    /** Returns the counter bound to the calling thread. */
+    public static QueryCounter current() {
+        return CURRENT.get();
+    }
+
+    /** Drops the calling thread's counter, e.g. before a pooled thread goes back to its pool. */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /** Zeroes the totals; labels are kept. */
+    public void reset() {
+        statements = 0;
+        rows = 0;
+        elapsedNanos = 0;
+    }
+
+    /**
+     * Wraps {@code task} so that statements it issues on another thread carry the calling thread's
+     * endpoint label; the worker's own label is restored afterwards.
+     */
+    public static Runnable propagateEndpoint(Runnable task) {
+        String endpoint = current().endpoint;
+        return () -> {
+            QueryCounter counter = current();
+            String previous = counter.endpoint;
+            counter.endpoint = endpoint;
+            try {
+                task.run();
+            } finally {
+                counter.endpoint = previous;
+            }
+        };
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getRepositoryMethod() {
+        return repositoryMethod;
+    }
+
+    void setEndpoint(String endpoint) {
+        this.endpoint = endpoint != null ? endpoint : NONE;
+    }
+
+    /** Labels statements with a repository method until {@link #exitRepositoryMethod}; returns the outer label. */
+    String enterRepositoryMethod(String method) {
+        String previous = repositoryMethod;
+        repositoryMethod = method;
+        return previous;
+    }
+
+    void exitRepositoryMethod(String previous) {
+        repositoryMethod = previous;
+    }
+
+    void startStatement() {
+        statementStartedNanos = System.nanoTime();
+    }
+
+    /** Counts the statement started by {@link #startStatement} and returns its duration in nanoseconds. */
+    long recordStatement() {
+        long elapsed = System.nanoTime() - statementStartedNanos;
+        statements++;
+        elapsedNanos += elapsed;
+        return elapsed;
+    }
+
+    void recordRow() {
+        rows++;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.messenger.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JDBC instrumentation per HTTP endpoint and repository method.
+ *
+ * <p>The application {@link DataSource} is wrapped in a datasource-proxy that times every statement
+ * and counts rows read from result sets into the thread's {@link QueryCounter}. An MVC interceptor
+ * labels the counter with the matched route and publishes per-request totals; an advice on every
+ * Spring Data repository labels statements with the repository method that issued them. Statements
+ * issued outside a repository call (lazy loads, flushes) are tagged {@code none}.
+ *
+ * <p>Totals are per thread. Login runs on the auth executor, so its statements are missing from the
+ * {@code POST /api/v1/auth/login} request totals; that executor propagates the endpoint label
+ * ({@link QueryCounter#propagateEndpoint}), so they still show under that endpoint in
+ * {@code messenger.db.query}.
+ *
+ * <p>Hibernate's own statistics ({@code hibernate.generate_statistics}) are bound to Micrometer as
+ * {@code hibernate.*} by Spring Boot. Disable everything here with {@code query-metrics.enabled=false}.
+ *
+ * <p>Metrics registered:
+ * <ul>
+ *   <li>{@code messenger.db.query} (timer, tags {@code endpoint}, {@code repository_method}) — each JDBC execution</li>
+ *   <li>{@code messenger.db.request.statements} (distribution summary, tag {@code endpoint}) — statements per request</li>
+ *   <li>{@code messenger.db.request.rows} (distribution summary, tag {@code endpoint}) — result-set rows read per request</li>
+ *   <li>{@code messenger.db.request.time} (timer, tag {@code endpoint}) — total JDBC time per request</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "query-metrics", name = "enabled", matchIfMissing = true)
+public class QueryMetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    public QueryMetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Wraps the DataSource bean in a counting proxy. The registry is resolved lazily so that this
+     * post-processor does not force early initialization of the metrics infrastructure.
+     */
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    QueryListener listener = new QueryListener(meterRegistry);
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(listener)
+                            .methodListener(listener)
+                            .proxyResultSet()
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    /** Adds the repository-method labelling advice to every Spring Data repository proxy. */
+    @Bean
+    public static BeanPostProcessor repositoryMethodLabelPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, info) -> proxyFactory.addAdvice(
+                                    new RepositoryMethodLabel(info.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestQueryMetricsInterceptor(meterRegistry));
+    }
+
+    /** Times each statement (in nanoseconds) and counts {@code ResultSet.next()} calls that returned a row. */
+    static class QueryListener implements QueryExecutionListener, MethodExecutionListener {
+
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        QueryListener(ObjectProvider<MeterRegistry> meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            QueryCounter.current().startStatement();
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            QueryCounter counter = QueryCounter.current();
+            long elapsedNanos = counter.recordStatement();
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null) {
+                Timer.builder("messenger.db.query")
+                        .description("JDBC statement execution time")
+                        .tag("endpoint", counter.getEndpoint())
+                        .tag("repository_method", counter.getRepositoryMethod())
+                        .register(registry)
+                        .record(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public void beforeMethod(MethodExecutionContext executionContext) {
+        }
+
+        @Override
+        public void afterMethod(MethodExecutionContext executionContext) {
+            if (executionContext.getTarget() instanceof ResultSet
+                    && "next".equals(executionContext.getMethod().getName())
+                    && Boolean.TRUE.equals(executionContext.getResult())) {
+                QueryCounter.current().recordRow();
+            }
+        }
+    }
+
+    /** Labels statements issued while a repository method runs; nested calls restore the outer label. */
+    static class RepositoryMethodLabel implements MethodInterceptor {
+
+        private final String repository;
+
+        RepositoryMethodLabel(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            QueryCounter counter = QueryCounter.current();
+            String previous = counter.enterRepositoryMethod(repository + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                counter.exitRepositoryMethod(previous);
+            }
+        }
+    }
+
+    /**
+     * Resets the thread's counter when a request is dispatched to a handler and records its totals,
+     * tagged with the matched route pattern (never the raw URI, to keep tag cardinality bounded).
+     */
+    static class RequestQueryMetricsInterceptor implements HandlerInterceptor {
+
+        private final MeterRegistry meterRegistry;
+
+        RequestQueryMetricsInterceptor(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            QueryCounter counter = QueryCounter.current();
+            counter.reset();
+            counter.setEndpoint(endpoint(request));
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                    Exception ex) {
+            QueryCounter counter = QueryCounter.current();
+            String endpoint = counter.getEndpoint();
+            DistributionSummary.builder("messenger.db.request.statements")
+                    .description("JDBC statements executed per HTTP request")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .record(counter.getStatements());
+            DistributionSummary.builder("messenger.db.request.rows")
+                    .description("Result-set rows read per HTTP request")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .record(counter.getRows());
+            Timer.builder("messenger.db.request.time")
+                    .description("Total JDBC execution time per HTTP request")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .record(counter.getElapsedNanos(), TimeUnit.NANOSECONDS);
+            QueryCounter.clear();
+        }
+
+        private static String endpoint(HttpServletRequest request) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return request.getMethod() + " " + (pattern != null ? pattern : "unmatched");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.messenger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for the background job that rewrites stored message bodies under the active key
+ * ({@code ReencryptionService}) after a key rotation.
+ *
+ * <p>The job walks {@code message} in id order, {@link #getBatchSize()} rows per transaction, and
+ * records the last id it reached in {@code crypto_reencryption_checkpoint}, so a restart resumes where
+ * it stopped. Throughput is capped at {@link #getMaxRowsPerSecond()} rows scanned per second and a run
+ * stops after {@link #getMaxBatchesPerRun()} batches; once the whole table is under the active key the
+ * job is idle until the next rotation.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "crypto.reencryption")
+public class ReencryptionConfig {
+
+    private boolean enabled = true;
+    private long intervalMs = 60000; // 1 minute between runs
+    private long initialDelayMs = 120000; // 2 minutes after startup
+    private int batchSize = 200;
+    private int maxBatchesPerRun = 50;
+    private int maxRowsPerSecond = 500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public long getInitialDelayMs() {
+        return initialDelayMs;
+    }
+
+    public void setInitialDelayMs(long initialDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxBatchesPerRun() {
+        return maxBatchesPerRun;
+    }
+
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    public int getMaxRowsPerSecond() {
+        return maxRowsPerSecond;
+    }
+
+    public void setMaxRowsPerSecond(int maxRowsPerSecond) {
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+}
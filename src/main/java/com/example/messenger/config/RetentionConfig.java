@@ -0,0 +1,109 @@
+package com.example.messenger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Retention settings for the background purge job ({@code RetentionService}).
+ *
+ * <p>Each table has its own TTL. Rows are deleted in batches of {@link #getBatchSize()} so that
+ * no single statement holds row locks for long; a run stops after {@link #getMaxBatchesPerRun()}
+ * batches and the remainder is picked up by the next run. When the {@code event} table is
+ * partitioned (PostgreSQL), whole expired months are dropped first and only the boundary month is
+ * deleted row by row.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "retention")
+public class RetentionConfig {
+
+    private boolean enabled = true;
+    private long intervalMs = 3600000; // 1 hour
+    private long initialDelayMs = 60000; // 1 minute after startup
+    private int batchSize = 1000;
+    private int maxBatchesPerRun = 100;
+    private long eventTtlMs = 2592000000L; // 30 days
+    private boolean dropEventPartitions = true;
+    private long refreshTokenGraceMs = 86400000; // 1 day past expiry
+    private boolean purgeRevokedRefreshTokens = true;
+    private long idempotencyClaimTtlMs = 604800000; // 7 days; older idempotency keys may be reused
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public long getInitialDelayMs() {
+        return initialDelayMs;
+    }
+
+    public void setInitialDelayMs(long initialDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxBatchesPerRun() {
+        return maxBatchesPerRun;
+    }
+
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    public long getEventTtlMs() {
+        return eventTtlMs;
+    }
+
+    public void setEventTtlMs(long eventTtlMs) {
+        this.eventTtlMs = eventTtlMs;
+    }
+
+    public boolean isDropEventPartitions() {
+        return dropEventPartitions;
+    }
+
+    public void setDropEventPartitions(boolean dropEventPartitions) {
+        this.dropEventPartitions = dropEventPartitions;
+    }
+
+    public long getRefreshTokenGraceMs() {
+        return refreshTokenGraceMs;
+    }
+
+    public void setRefreshTokenGraceMs(long refreshTokenGraceMs) {
+        this.refreshTokenGraceMs = refreshTokenGraceMs;
+    }
+
+    public boolean isPurgeRevokedRefreshTokens() {
+        return purgeRevokedRefreshTokens;
+    }
+
+    public void setPurgeRevokedRefreshTokens(boolean purgeRevokedRefreshTokens) {
+        this.purgeRevokedRefreshTokens = purgeRevokedRefreshTokens;
+    }
+
+    public long getIdempotencyClaimTtlMs() {
+        return idempotencyClaimTtlMs;
+    }
+
+    public void setIdempotencyClaimTtlMs(long idempotencyClaimTtlMs) {
+        this.idempotencyClaimTtlMs = idempotencyClaimTtlMs;
+    }
+}
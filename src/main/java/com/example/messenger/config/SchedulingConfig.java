@@ -0,0 +1,17 @@
+package com.example.messenger.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background jobs (retention purge, etc.).
+ *
+ * <p>Jobs run on Spring Boot's auto-configured task scheduler; its pool size is set with
+ * {@code spring.task.scheduling.pool.size}. Boot's default is a single thread, which would leave every
+ * other job waiting while re-encryption sleeps off its rate limit, so application.yml raises it. Each job checks its own {@code enabled} flag so that
+ * tests and individual nodes can switch jobs off without disabling scheduling globally.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
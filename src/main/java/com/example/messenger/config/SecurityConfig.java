@@ -1,6 +1,7 @@
 package com.example.messenger.config;
 
 import com.example.messenger.security.JwtAuthenticationFilter;
+import com.example.messenger.security.RehashingPasswordEncoder;
 import com.example.messenger.service.UserDetailsServiceImpl;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,7 +12,6 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
@@ -30,14 +30,24 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingConfig config) {
+        return new RehashingPasswordEncoder(
+                config.getEncoder(),
+                config.getBcryptStrength(),
+                config.getArgon2SaltLength(),
+                config.getArgon2HashLength(),
+                config.getArgon2Parallelism(),
+                config.getArgon2MemoryKb(),
+                config.getArgon2Iterations()
+        );
     }
 
     @Bean
     public AuthenticationManager authenticationManager(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider(userDetailsService);
         authenticationProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hash on successful login when the stored hash uses other algorithm/cost settings
+        authenticationProvider.setUserDetailsPasswordService(userDetailsService);
         return new ProviderManager(authenticationProvider);
     }
 
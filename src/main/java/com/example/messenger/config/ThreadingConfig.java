@@ -0,0 +1,79 @@
+package com.example.messenger.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Executors for the login path and WebSocket fan-out, in platform-thread (default) or
+ * virtual-thread mode.
+ *
+ * <p>Virtual-thread mode is opt-in with {@code spring.threads.virtual.enabled=true} and needs a
+ * Java 21+ runtime (build with {@code -PjavaVersion=21}). Spring Boot then serves Tomcat requests
+ * and {@code @Scheduled} jobs on virtual threads, so blocking JDBC calls in the services no longer
+ * cap concurrency at the Tomcat pool size. This class switches the application's own executors:
+ * <ul>
+ *   <li>{@code authExecutor} keeps its bound (password hashing is CPU-bound) but its workers are
+ *       virtual, so the user lookup inside authentication does not pin a carrier thread.</li>
+ *   <li>{@code fanoutExecutor} runs each session's writer on a virtual thread, one writer per session
+ *       at a time so frames keep their order; in platform mode frames are written inline on the
+ *       publishing thread, which also writes any frames queued behind its own. The session's
+ *       send-time and buffer-size limits bound that work: a slow session is closed rather than
+ *       left to hold the publisher.</li>
+ * </ul>
+ * On Java 17 the property is ignored and platform threads are used.
+ */
+@Configuration
+public class ThreadingConfig {
+
+    static final String VIRTUAL_THREADS_PROPERTY = "spring.threads.virtual.enabled";
+
+    private final boolean virtualThreads;
+
+    public ThreadingConfig(Environment environment) {
+        this.virtualThreads = environment.getProperty(VIRTUAL_THREADS_PROPERTY, Boolean.class, false)
+                && Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * Bounded pool for password verification. Hashing is CPU-bound, so capping the threads keeps a
+     * login storm from starving message sends; once the queue is full, logins fail fast with
+     * {@code TaskRejectedException}. Pool metrics are exported as {@code executor.*} tagged
+     * {@code name=authExecutor}.
+     */
+    @Bean(name = "authExecutor")
+    public ThreadPoolTaskExecutor authExecutor(PasswordHashingConfig config) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(config.getAuthThreads());
+        executor.setMaxPoolSize(config.getAuthThreads());
+        executor.setQueueCapacity(config.getAuthQueueCapacity());
+        executor.setThreadNamePrefix("auth-");
+        // login statements keep the request's endpoint label in the query metrics
+        executor.setTaskDecorator(QueryCounter::propagateEndpoint);
+        if (virtualThreads) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("auth-").getVirtualThreadFactory());
+        }
+        return executor;
+    }
+
+    /** Runs per-session WebSocket writers for {@code EventService}; inline unless virtual threads are enabled. */
+    @Bean(name = "fanoutExecutor")
+    public TaskExecutor fanoutExecutor() {
+        return virtualThreads ? new VirtualThreadTaskExecutor("fanout-") : new SyncTaskExecutor();
+    }
+
+    /**
+     * Bounded pool for parallel decryption of large message-history pages. Kept separate from the
+     * common pool so that page decryption cannot be starved by, or starve, unrelated parallel streams.
+     */
+    @Bean(name = "cryptoPool", destroyMethod = "shutdown")
+    public ForkJoinPool cryptoPool(CryptoConfig config) {
+        return new ForkJoinPool(config.getDecryptParallelism());
+    }
+}
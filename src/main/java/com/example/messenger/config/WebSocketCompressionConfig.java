@@ -0,0 +1,47 @@
+package com.example.messenger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * permessage-deflate (RFC 7692) settings for the {@code /api/v1/events} WebSocket endpoint.
+ *
+ * <p>Tomcat negotiates the extension from the client's {@code Sec-WebSocket-Extensions} offer;
+ * {@code DeflateNegotiationFilter} rewrites that offer before the handshake to apply these settings.
+ * With context takeover (the default) each direction keeps a 32 KB LZ77 window per connection
+ * between messages, which compresses repetitive JSON events best. Setting
+ * {@link #isServerNoContextTakeover()} / {@link #isClientNoContextTakeover()} resets the window
+ * after every message, trading ratio for per-connection memory.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.compression")
+public class WebSocketCompressionConfig {
+
+    private boolean enabled = true;
+    private boolean serverNoContextTakeover = false;
+    private boolean clientNoContextTakeover = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isServerNoContextTakeover() {
+        return serverNoContextTakeover;
+    }
+
+    public void setServerNoContextTakeover(boolean serverNoContextTakeover) {
+        this.serverNoContextTakeover = serverNoContextTakeover;
+    }
+
+    public boolean isClientNoContextTakeover() {
+        return clientNoContextTakeover;
+    }
+
+    public void setClientNoContextTakeover(boolean clientNoContextTakeover) {
+        this.clientNoContextTakeover = clientNoContextTakeover;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.messenger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+/**
+ * Limits applied to every registered WebSocket session ({@code EventService} wraps each one in a
+ * {@code ConcurrentWebSocketSessionDecorator}).
+ *
+ * <p>Only one thread writes to a session at a time; frames published while a write is in progress
+ * are buffered. A session whose current write has taken longer than {@link #getSendTimeLimitMs()}
+ * or whose buffer exceeds {@link #getBufferSizeLimitBytes()} is treated as a slow consumer: with
+ * {@code TERMINATE} it is closed, with {@code DROP} the oldest buffered frames are discarded.
+ *
+ * <p>Every {@link #getHeartbeatIntervalMs()} the server pings each session; a session from which
+ * nothing (pong or any other frame) has arrived for {@link #getIdleTimeoutMs()} is considered
+ * half-open and is closed and removed ({@code SessionHeartbeatService}).
+ *
+ * <p>{@link #getNodeId()} tags the per-node session metrics; it defaults to the {@code HOSTNAME}
+ * environment variable (the pod name on Kubernetes).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.session")
+public class WebSocketSessionConfig {
+
+    private int sendTimeLimitMs = 10000; // 10 seconds
+    private int bufferSizeLimitBytes = 512 * 1024; // 512 KB
+    private OverflowStrategy overflowStrategy = OverflowStrategy.TERMINATE;
+    private boolean heartbeatEnabled = true;
+    private long heartbeatIntervalMs = 25000; // 25 seconds, below common proxy idle timeouts
+    private long idleTimeoutMs = 75000; // three missed heartbeats
+    private String nodeId = System.getenv().getOrDefault("HOSTNAME", "local");
+
+    public int getSendTimeLimitMs() {
+        return sendTimeLimitMs;
+    }
+
+    public void setSendTimeLimitMs(int sendTimeLimitMs) {
+        this.sendTimeLimitMs = sendTimeLimitMs;
+    }
+
+    public int getBufferSizeLimitBytes() {
+        return bufferSizeLimitBytes;
+    }
+
+    public void setBufferSizeLimitBytes(int bufferSizeLimitBytes) {
+        this.bufferSizeLimitBytes = bufferSizeLimitBytes;
+    }
+
+    public OverflowStrategy getOverflowStrategy() {
+        return overflowStrategy;
+    }
+
+    public void setOverflowStrategy(OverflowStrategy overflowStrategy) {
+        this.overflowStrategy = overflowStrategy;
+    }
+
+    public boolean isHeartbeatEnabled() {
+        return heartbeatEnabled;
+    }
+
+    public void setHeartbeatEnabled(boolean heartbeatEnabled) {
+        this.heartbeatEnabled = heartbeatEnabled;
+    }
+
+    public long getHeartbeatIntervalMs() {
+        return heartbeatIntervalMs;
+    }
+
+    public void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.messenger.crypto;
+
+import com.example.messenger.config.CryptoConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * AES-256-GCM message encryption with one key per conversation, derived from a master key in the
+ * {@link KeyRing} by HKDF-SHA256 ({@code info = "messenger/conversation/v1" || conversationId}) and
+ * cached in a {@link ConversationKeyCache}.
+ *
+ * <p>Envelopes are stored as-is in {@code message.body} ({@link #encryptBytes}); the {@code String}
+ * methods Base64-encode them. New envelopes are version 2:
+ * <pre>
+ *   u8  version (2)
+ *   u16 key id
+ *   12  nonce (random)
+ *   n   ciphertext
+ *   16  GCM tag
+ * </pre>
+ * Version 1 has no key id field and is always decrypted with {@link KeyRing#INITIAL_KEY_ID}. The header
+ * and the conversation id are authenticated as associated data, so an envelope copied into another
+ * conversation, or relabelled with another key id, fails to decrypt instead of revealing its plaintext.
+ *
+ * <p>Messages sent with a sender ({@link #encryptBytes(Long, Long, int, String)}) use version 3, keyed
+ * by a {@link SenderKeyChains sender-key chain} for (conversation, sender, epoch) rather than the
+ * conversation key:
+ * <pre>
+ *   u8  version (3)
+ *   u16 key id
+ *   u64 sender id
+ *   u32 epoch
+ *   u32 chain iteration
+ *   12  nonce, then ciphertext and 16-byte tag as above
+ * </pre>
+ * A group message is encrypted exactly once, whatever the number of members; bumping the conversation's
+ * epoch (e.g. when a member leaves) starts fresh chains for every sender. Starting a chain publishes a
+ * {@link SenderKeyDistributionEvent}, synchronously on the sending thread (and so inside the caller's
+ * transaction, if any).
+ *
+ * <p>Rotating keys: add the new key to {@code crypto.keys}, make it {@code crypto.active-key-id}, and keep
+ * the old one in the ring; {@code ReencryptionService} moves stored messages across in the background
+ * (see {@link #needsReencryption}). Bodies written by the {@code ED448v1|} placeholder are read through
+ * {@link Ed448MessageCrypto} until that job rewrites them.
+ */
+@Component
+@Primary
+public class AesGcmMessageCrypto implements MessageCrypto {
+
+    static final byte VERSION_1 = 1;
+    static final byte VERSION_2 = 2;
+    static final int NONCE_LENGTH = 12;
+    static final int TAG_LENGTH = 16;
+    static final int V1_HEADER_LENGTH = 1;
+    static final byte VERSION_3 = 3;
+    static final int V2_HEADER_LENGTH = 3;
+    static final int V3_HEADER_LENGTH = 19;
+
+    private static final byte[] INFO_PREFIX = "messenger/conversation/v1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SENDER_INFO_PREFIX = "messenger/sender-key/v1".getBytes(StandardCharsets.US_ASCII);
+    private static final String LEGACY_PREFIX = "ED448v1|";
+    private static final byte LEGACY_FIRST_BYTE = 'E';
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM unavailable", e);
+        }
+    });
+
+    private final SecureRandom random = new SecureRandom();
+    private final KeyRing keyRing;
+    private final ConversationKeyCache keys;
+    private final SenderKeyChains senderKeys;
+    private final Ed448MessageCrypto legacy;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    @Autowired
+    public AesGcmMessageCrypto(CryptoConfig config, Ed448MessageCrypto legacy,
+                               @Qualifier("cryptoPool") ForkJoinPool pool, ApplicationEventPublisher events) {
+        this(keyRing(config), config.getKeyCacheSize(), legacy, pool, config.getParallelDecryptThreshold(), events);
+    }
+
+    /** Sequential-only instance with a single master key, e.g. for benchmarks. */
+    public AesGcmMessageCrypto(byte[] masterKey, int keyCacheSize, Ed448MessageCrypto legacy) {
+        this(KeyRing.single(masterKey), keyCacheSize, legacy, null, Integer.MAX_VALUE);
+    }
+
+    public AesGcmMessageCrypto(byte[] masterKey, int keyCacheSize, Ed448MessageCrypto legacy,
+                               ForkJoinPool pool, int parallelThreshold) {
+        this(KeyRing.single(masterKey), keyCacheSize, legacy, pool, parallelThreshold);
+    }
+
+    /**
+     * @param pool pool for {@link #decryptAll} on pages of at least {@code parallelThreshold} messages;
+     *             null to always decrypt on the calling thread
+     */
+    public AesGcmMessageCrypto(KeyRing keyRing, int keyCacheSize, Ed448MessageCrypto legacy,
+                               ForkJoinPool pool, int parallelThreshold) {
+        this(keyRing, keyCacheSize, legacy, pool, parallelThreshold, event -> { });
+    }
+
+    /** @param events receives a {@link SenderKeyDistributionEvent} whenever a sender-key chain starts */
+    public AesGcmMessageCrypto(KeyRing keyRing, int keyCacheSize, Ed448MessageCrypto legacy,
+                               ForkJoinPool pool, int parallelThreshold, ApplicationEventPublisher events) {
+        this.keyRing = keyRing;
+        this.keys = new ConversationKeyCache(keyCacheSize,
+                (keyId, conversationId) -> deriveKey(keyRing.hkdf(keyId), conversationId));
+        this.senderKeys = new SenderKeyChains(keyCacheSize,
+                id -> deriveChainKey(keyRing.hkdf(id.keyId()), id),
+                id -> events.publishEvent(new SenderKeyDistributionEvent(
+                        id.conversationId(), id.senderId(), id.epoch(), id.keyId())));
+        this.legacy = legacy;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    private static KeyRing keyRing(CryptoConfig config) {
+        Map<Integer, byte[]> masterKeys = new HashMap<>();
+        masterKeys.put(KeyRing.INITIAL_KEY_ID, Base64.getDecoder().decode(config.getMasterKey()));
+        config.getKeys().forEach((id, key) -> masterKeys.put(id, Base64.getDecoder().decode(key)));
+        return new KeyRing(masterKeys, config.getActiveKeyId());
+    }
+
+    private static SecretKey deriveKey(Hkdf hkdf, long conversationId) {
+        byte[] info = ByteBuffer.allocate(INFO_PREFIX.length + Long.BYTES)
+                .put(INFO_PREFIX)
+                .putLong(conversationId)
+                .array();
+        return new SecretKeySpec(hkdf.expand(info, 32), "AES");
+    }
+
+    private static byte[] deriveChainKey(Hkdf hkdf, SenderKeyChains.ChainId id) {
+        byte[] info = ByteBuffer.allocate(SENDER_INFO_PREFIX.length + 2 * Long.BYTES + Integer.BYTES)
+                .put(SENDER_INFO_PREFIX)
+                .putLong(id.conversationId())
+                .putLong(id.senderId())
+                .putInt(id.epoch())
+                .array();
+        return hkdf.expand(info, 32);
+    }
+
+    @Override
+    public String encrypt(Long conversationId, String plaintext) {
+        byte[] envelope = encryptBytes(conversationId, plaintext);
+        return envelope == null ? null : Base64.getEncoder().encodeToString(envelope);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the envelope is malformed, was not written for this
+     *         conversation, or has been tampered with
+     */
+    @Override
+    public String decrypt(Long conversationId, String ciphertext) {
+        if (ciphertext == null) {
+            return null;
+        }
+        if (ciphertext.startsWith(LEGACY_PREFIX)) {
+            return legacy.decrypt(conversationId, ciphertext);
+        }
+        return decryptBytes(conversationId, Base64.getDecoder().decode(ciphertext));
+    }
+
+    /** Encrypts under the active key as a version-2 envelope. */
+    @Override
+    public byte[] encryptBytes(Long conversationId, String plaintext) {
+        if (plaintext == null) {
+            return null;
+        }
+        int keyId = keyRing.activeKeyId();
+        byte[] data = plaintext.getBytes(StandardCharsets.UTF_8);
+        byte[] envelope = new byte[V2_HEADER_LENGTH + NONCE_LENGTH + data.length + TAG_LENGTH];
+        envelope[0] = VERSION_2;
+        envelope[1] = (byte) (keyId >>> 8);
+        envelope[2] = (byte) keyId;
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        System.arraycopy(nonce, 0, envelope, V2_HEADER_LENGTH, NONCE_LENGTH);
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, keys.get(keyId, conversationId),
+                    new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+            cipher.updateAAD(associatedData(envelope, V2_HEADER_LENGTH, conversationId));
+            cipher.doFinal(data, 0, data.length, envelope, V2_HEADER_LENGTH + NONCE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Message encryption failed", e);
+        }
+        return envelope;
+    }
+
+    /** Encrypts under the sender's chain for {@code epoch} as a version-3 envelope. */
+    @Override
+    public byte[] encryptBytes(Long conversationId, Long senderId, int epoch, String plaintext) {
+        if (plaintext == null) {
+            return null;
+        }
+        int keyId = keyRing.activeKeyId();
+        SenderKeyChains.Chain chain = senderKeys.forSending(
+                new SenderKeyChains.ChainId(keyId, conversationId, senderId, epoch));
+        int iteration = chain.nextIteration();
+        return sealV3(conversationId, keyId, senderId, epoch, iteration, chain.messageKey(iteration), plaintext);
+    }
+
+    private byte[] sealV3(long conversationId, int keyId, long senderId, int epoch, int iteration,
+                          SecretKey messageKey, String plaintext) {
+        byte[] data = plaintext.getBytes(StandardCharsets.UTF_8);
+        byte[] envelope = new byte[V3_HEADER_LENGTH + NONCE_LENGTH + data.length + TAG_LENGTH];
+        ByteBuffer header = ByteBuffer.wrap(envelope);
+        header.put(VERSION_3).putShort((short) keyId).putLong(senderId).putInt(epoch).putInt(iteration);
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        header.put(nonce);
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, messageKey, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+            cipher.updateAAD(associatedData(envelope, V3_HEADER_LENGTH, conversationId));
+            cipher.doFinal(data, 0, data.length, envelope, V3_HEADER_LENGTH + NONCE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Message encryption failed", e);
+        }
+        return envelope;
+    }
+
+    /**
+     * Decrypts a stored envelope. Bodies still holding the UTF-8 bytes of a legacy {@code ED448v1|}
+     * string are recognised by their first byte and decoded through {@link Ed448MessageCrypto}.
+     *
+     * @throws IllegalArgumentException if the envelope is malformed, names a key that is not in the
+     *         ring, was not written for this conversation, or has been tampered with
+     */
+    @Override
+    public String decryptBytes(Long conversationId, byte[] envelope) {
+        return decrypt(conversationId, envelope, -1, null);
+    }
+
+    /**
+     * Decrypts a page of envelopes from one conversation, preserving order. The conversation key for
+     * the active key id is looked up once; pages of at least {@code crypto.parallel-decrypt-threshold}
+     * envelopes are split across the crypto pool, smaller ones are decrypted on the calling thread.
+     */
+    @Override
+    public List<String> decryptAll(Long conversationId, List<byte[]> envelopes) {
+        if (envelopes.isEmpty()) {
+            return List.of();
+        }
+        int activeKeyId = keyRing.activeKeyId();
+        SecretKey activeKey = keys.get(activeKeyId, conversationId);
+        if (pool == null || envelopes.size() < parallelThreshold) {
+            List<String> plaintexts = new ArrayList<>(envelopes.size());
+            for (byte[] envelope : envelopes) {
+                plaintexts.add(decrypt(conversationId, envelope, activeKeyId, activeKey));
+            }
+            return plaintexts;
+        }
+        return pool.submit(() -> envelopes.parallelStream()
+                .map(envelope -> decrypt(conversationId, envelope, activeKeyId, activeKey))
+                .toList()).join();
+    }
+
+    /** True for legacy placeholder bodies and for envelopes not written under the active key. */
+    @Override
+    public boolean needsReencryption(byte[] envelope) {
+        if (envelope == null || envelope.length == 0) {
+            return false;
+        }
+        if (envelope[0] == VERSION_2 || envelope[0] == VERSION_3) {
+            return envelope.length >= V2_HEADER_LENGTH && keyId(envelope) != keyRing.activeKeyId();
+        }
+        return envelope[0] == VERSION_1 || envelope[0] == LEGACY_FIRST_BYTE;
+    }
+
+    @Override
+    public int currentKeyId() {
+        return keyRing.activeKeyId();
+    }
+
+    /**
+     * Re-encrypts under the active key. A version-3 envelope keeps its sender, epoch and iteration and is
+     * re-sealed with that message's key in the active key's chain, so rewriting old epochs neither starts
+     * sending chains nor announces them.
+     */
+    @Override
+    public byte[] reencrypt(Long conversationId, byte[] envelope) {
+        String plaintext = decryptBytes(conversationId, envelope);
+        if (envelope.length >= V3_HEADER_LENGTH && envelope[0] == VERSION_3) {
+            ByteBuffer header = ByteBuffer.wrap(envelope, V2_HEADER_LENGTH, V3_HEADER_LENGTH - V2_HEADER_LENGTH);
+            long senderId = header.getLong();
+            int epoch = header.getInt();
+            int iteration = header.getInt();
+            int keyId = keyRing.activeKeyId();
+            SecretKey messageKey = senderKeys.messageKey(
+                    new SenderKeyChains.ChainId(keyId, conversationId, senderId, epoch), iteration);
+            return sealV3(conversationId, keyId, senderId, epoch, iteration, messageKey, plaintext);
+        }
+        return encryptBytes(conversationId, plaintext);
+    }
+
+    /**
+     * @param hintKeyId key id whose conversation key the caller already resolved, or -1
+     * @param hintKey   that key, reused when the envelope names {@code hintKeyId}
+     */
+    private String decrypt(Long conversationId, byte[] envelope, int hintKeyId, SecretKey hintKey) {
+        if (envelope == null) {
+            return null;
+        }
+        if (envelope.length > 0 && envelope[0] == LEGACY_FIRST_BYTE) {
+            return legacy.decrypt(conversationId, new String(envelope, StandardCharsets.UTF_8));
+        }
+        int headerLength;
+        int keyId;
+        if (envelope.length > 0 && envelope[0] == VERSION_3) {
+            if (envelope.length < V3_HEADER_LENGTH + NONCE_LENGTH + TAG_LENGTH) {
+                throw new IllegalArgumentException("Truncated message envelope");
+            }
+            ByteBuffer header = ByteBuffer.wrap(envelope, 1, V3_HEADER_LENGTH - 1);
+            SenderKeyChains.ChainId id = new SenderKeyChains.ChainId(
+                    header.getShort() & 0xFFFF, conversationId, header.getLong(), header.getInt());
+            return open(envelope, V3_HEADER_LENGTH, conversationId, senderKeys.messageKey(id, header.getInt()));
+        } else if (envelope.length > 0 && envelope[0] == VERSION_2) {
+            headerLength = V2_HEADER_LENGTH;
+            keyId = envelope.length >= V2_HEADER_LENGTH ? keyId(envelope) : -1;
+        } else if (envelope.length > 0 && envelope[0] == VERSION_1) {
+            headerLength = V1_HEADER_LENGTH;
+            keyId = KeyRing.INITIAL_KEY_ID;
+        } else {
+            throw new IllegalArgumentException("Unsupported message envelope");
+        }
+        if (envelope.length < headerLength + NONCE_LENGTH + TAG_LENGTH) {
+            throw new IllegalArgumentException("Truncated message envelope");
+        }
+        SecretKey key = keyId == hintKeyId ? hintKey : keys.get(keyId, conversationId);
+        return open(envelope, headerLength, conversationId, key);
+    }
+
+    private static String open(byte[] envelope, int headerLength, long conversationId, SecretKey key) {
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, envelope, headerLength, NONCE_LENGTH));
+            cipher.updateAAD(associatedData(envelope, headerLength, conversationId));
+            int offset = headerLength + NONCE_LENGTH;
+            byte[] plaintext = cipher.doFinal(envelope, offset, envelope.length - offset);
+            return new String(plaintext, StandardCharsets.UTF_8);
+        } catch (AEADBadTagException e) {
+            throw new IllegalArgumentException("Message envelope failed authentication", e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Message decryption failed", e);
+        }
+    }
+
+    /** Number of conversation keys currently cached. */
+    public int cachedKeyCount() {
+        return keys.size();
+    }
+
+    /** Sender-key chain state, exposed for metrics and tests. */
+    public SenderKeyChains senderKeys() {
+        return senderKeys;
+    }
+
+    static int keyId(byte[] envelope) {
+        return ((envelope[1] & 0xFF) << 8) | (envelope[2] & 0xFF);
+    }
+
+    /** The envelope header followed by the conversation id. */
+    private static byte[] associatedData(byte[] envelope, int headerLength, long conversationId) {
+        return ByteBuffer.allocate(headerLength + Long.BYTES)
+                .put(envelope, 0, headerLength)
+                .putLong(conversationId)
+                .array();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.messenger.crypto;
+
+import javax.crypto.SecretKey;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of derived per-conversation keys, one entry per (key id, conversation). Derivation
+ * runs outside the lock, so a miss never blocks lookups for other conversations; two threads racing
+ * on the same miss both derive the same key and the second insert is a harmless overwrite.
+ */
+public class ConversationKeyCache {
+
+    /** Derives the key for a conversation under one master key. */
+    @FunctionalInterface
+    public interface Derivation {
+        SecretKey derive(int keyId, long conversationId);
+    }
+
+    private record Entry(int keyId, long conversationId) {}
+
+    private final int maxSize;
+    private final Derivation derivation;
+    private final Map<Entry, SecretKey> keys;
+
+    public ConversationKeyCache(int maxSize, Derivation derivation) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Key cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.derivation = derivation;
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Entry, SecretKey> eldest) {
+                return size() > ConversationKeyCache.this.maxSize;
+            }
+        };
+    }
+
+    public SecretKey get(int keyId, long conversationId) {
+        Entry entry = new Entry(keyId, conversationId);
+        SecretKey key;
+        synchronized (keys) {
+            key = keys.get(entry);
+        }
+        if (key != null) {
+            return key;
+        }
+        key = derivation.derive(keyId, conversationId);
+        synchronized (keys) {
+            keys.put(entry, key);
+        }
+        return key;
+    }
+
+    public int size() {
+        synchronized (keys) {
+            return keys.size();
+        }
+    }
+}
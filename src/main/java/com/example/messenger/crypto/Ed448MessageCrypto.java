@@ -1,6 +1,5 @@
 package com.example.messenger.crypto;
 
-import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
@@ -8,8 +7,8 @@ import java.time.Instant;
 import java.util.Base64;
 
     // Placeholder Ed448 implementation so the app has a real slot for future crypto logic.
+    // No longer used for new messages: AesGcmMessageCrypto delegates ED448v1| bodies here to decode them.
 @Component
-@Primary
 public class Ed448MessageCrypto implements MessageCrypto {
 
     // Simple version tag so you can evolve the wire format later without guessing.
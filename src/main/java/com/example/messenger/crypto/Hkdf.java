@@ -0,0 +1,61 @@
+package com.example.messenger.crypto;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * HKDF with HMAC-SHA256 (RFC 5869). The pseudorandom key is extracted once; {@link #expand} then
+ * derives any number of independent keys from it by varying {@code info}.
+ */
+final class Hkdf {
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final int HASH_LENGTH = 32;
+
+    private final SecretKeySpec prk;
+
+    private Hkdf(byte[] prk) {
+        this.prk = new SecretKeySpec(prk, HMAC_SHA256);
+    }
+
+    /** HKDF-Extract; an empty or null salt is replaced by {@code HashLen} zero bytes as the RFC specifies. */
+    static Hkdf extract(byte[] salt, byte[] inputKeyMaterial) {
+        byte[] effectiveSalt = salt == null || salt.length == 0 ? new byte[HASH_LENGTH] : salt;
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(new SecretKeySpec(effectiveSalt, HMAC_SHA256));
+            return new Hkdf(mac.doFinal(inputKeyMaterial));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    /** HKDF-Expand to {@code length} bytes (at most 255 * 32). */
+    byte[] expand(byte[] info, int length) {
+        if (length <= 0 || length > 255 * HASH_LENGTH) {
+            throw new IllegalArgumentException("Invalid HKDF output length: " + length);
+        }
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(prk);
+            byte[] okm = new byte[length];
+            byte[] block = new byte[0];
+            int offset = 0;
+            for (int i = 1; offset < length; i++) {
+                mac.update(block);
+                mac.update(info);
+                mac.update((byte) i);
+                block = mac.doFinal();
+                int n = Math.min(block.length, length - offset);
+                System.arraycopy(block, 0, okm, offset, n);
+                offset += n;
+            }
+            Arrays.fill(block, (byte) 0);
+            return okm;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.messenger.crypto;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Master keys by key id. New envelopes are always written under {@link #activeKeyId()}; every other
+ * key is decrypt-only and stays in the ring until the re-encryption job has moved all stored messages
+ * off it. Key id 1 is the original {@code crypto.master-key}, which also decrypts version-1 envelopes
+ * (written before envelopes carried a key id). Key ids are never reused: the job's progress is
+ * checkpointed per key id.
+ */
+public final class KeyRing {
+
+    /** Key id implied by version-1 envelopes. */
+    public static final int INITIAL_KEY_ID = 1;
+
+    private final Map<Integer, Hkdf> masterKeys = new TreeMap<>();
+    private final int activeKeyId;
+
+    public KeyRing(Map<Integer, byte[]> masterKeys, int activeKeyId) {
+        masterKeys.forEach((id, key) -> {
+            if (id < 0 || id > 0xFFFF) {
+                throw new IllegalArgumentException("Key id out of range (0-65535): " + id);
+            }
+            if (key.length < 32) {
+                throw new IllegalArgumentException("Master key " + id + " must be at least 32 bytes");
+            }
+            this.masterKeys.put(id, Hkdf.extract(null, key));
+        });
+        if (!this.masterKeys.containsKey(activeKeyId)) {
+            throw new IllegalArgumentException("Active key id " + activeKeyId + " is not in the key ring");
+        }
+        this.activeKeyId = activeKeyId;
+    }
+
+    /** Ring holding a single master key as {@link #INITIAL_KEY_ID}. */
+    public static KeyRing single(byte[] masterKey) {
+        return new KeyRing(Map.of(INITIAL_KEY_ID, masterKey), INITIAL_KEY_ID);
+    }
+
+    public int activeKeyId() {
+        return activeKeyId;
+    }
+
+    public boolean contains(int keyId) {
+        return masterKeys.containsKey(keyId);
+    }
+
+    Hkdf hkdf(int keyId) {
+        Hkdf hkdf = masterKeys.get(keyId);
+        if (hkdf == null) {
+            throw new IllegalArgumentException("Unknown message key id " + keyId);
+        }
+        return hkdf;
+    }
+}
@@ -1,8 +1,45 @@
 package com.example.messenger.crypto;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 //interface allows us to slot in different cryptographic algos or formats
 public interface MessageCrypto {
     String encrypt(Long conversationId, String plaintext);
     String decrypt(Long conversationId, String ciphertext);
 
+    //binary form stored in message.body (bytea); text-based implementations just store their string as UTF-8
+    default byte[] encryptBytes(Long conversationId, String plaintext) {
+        String ciphertext = encrypt(conversationId, plaintext);
+        return ciphertext == null ? null : ciphertext.getBytes(StandardCharsets.UTF_8);
+    }
+
+    //group-friendly form: implementations may key by (conversation, sender, epoch) so one encryption serves all members
+    default byte[] encryptBytes(Long conversationId, Long senderId, int epoch, String plaintext) {
+        return encryptBytes(conversationId, plaintext);
+    }
+
+    default String decryptBytes(Long conversationId, byte[] envelope) {
+        return envelope == null ? null : decrypt(conversationId, new String(envelope, StandardCharsets.UTF_8));
+    }
+
+    //decrypts a page of bodies from one conversation, in order; implementations may resolve the key once and parallelise
+    default List<String> decryptAll(Long conversationId, List<byte[]> envelopes) {
+        return envelopes.stream().map(envelope -> decryptBytes(conversationId, envelope)).toList();
+    }
+
+    //true when the stored body should be rewritten under the current key/format (see ReencryptionService)
+    default boolean needsReencryption(byte[] envelope) {
+        return false;
+    }
+
+    //rewrites a stored body under the current key, keeping whatever the envelope says about its sender
+    default byte[] reencrypt(Long conversationId, byte[] envelope) {
+        return encryptBytes(conversationId, decryptBytes(conversationId, envelope));
+    }
+
+    //id of the key new bodies are written under; the re-encryption job checkpoints progress per key id
+    default int currentKeyId() {
+        return 0;
+    }
 }
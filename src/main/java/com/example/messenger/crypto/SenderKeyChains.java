@@ -0,0 +1,189 @@
+package com.example.messenger.crypto;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of sender-key chains, one per (key id, conversation, sender, epoch).
+ *
+ * <p>A chain's key is derived once from the master key; each message then gets its own AES key,
+ * {@code HMAC-SHA256(chainKey, iteration)}, so the crypto work per message is one HMAC and one AES-GCM
+ * pass no matter how many members the conversation has. Iterations are not persisted: after a
+ * restart or eviction a chain starts again at 0, which only repeats message keys that are always used
+ * with a fresh random nonce.
+ *
+ * <p>The first time a chain is used for sending in this process the {@link Listener} is told, so the
+ * new (sender, epoch) can be announced to members. Reading ({@link #messageKey}) only touches a separate
+ * LRU of chain keys: decrypting old epochs or other senders' messages never evicts a chain that is
+ * still sending, and never announces anything.
+ */
+public class SenderKeyChains {
+
+    /** Identifies one chain. */
+    public record ChainId(int keyId, long conversationId, long senderId, int epoch) {}
+
+    /** Derives the chain key for a chain. */
+    @FunctionalInterface
+    public interface Derivation {
+        byte[] derive(ChainId id);
+    }
+
+    /** Notified once per chain when it is first used for sending. */
+    @FunctionalInterface
+    public interface Listener {
+        void onChainStarted(ChainId id);
+    }
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_SHA256);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    });
+
+    private final int maxSize;
+    private final Derivation derivation;
+    private final Listener listener;
+    private final Map<ChainId, Chain> sending;
+    private final Map<ChainId, SecretKeySpec> chainKeys;
+    private final AtomicLong chainDerivations = new AtomicLong();
+    private final AtomicLong messageKeyDerivations = new AtomicLong();
+
+    public SenderKeyChains(int maxSize, Derivation derivation, Listener listener) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Sender key cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.derivation = derivation;
+        this.listener = listener;
+        this.sending = lru();
+        this.chainKeys = lru();
+    }
+
+    private <V> Map<ChainId, V> lru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ChainId, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /** The key for one message of a chain, for reading or re-sealing; never announces. */
+    public SecretKey messageKey(ChainId id, int iteration) {
+        return messageKey(chainKey(id), iteration);
+    }
+
+    /** The chain for sending; announces it to the listener on first use. */
+    public Chain forSending(ChainId id) {
+        Chain chain;
+        synchronized (sending) {
+            chain = sending.get(id);
+        }
+        if (chain == null) {
+            Chain created = new Chain(chainKey(id));
+            synchronized (sending) {
+                chain = sending.putIfAbsent(id, created);
+            }
+            if (chain == null) {
+                chain = created;
+            }
+        }
+        if (chain.announced.compareAndSet(false, true)) {
+            listener.onChainStarted(id);
+        }
+        return chain;
+    }
+
+    /**
+     * Forgets that the chain was announced, e.g. because the announcement was rolled back with the send
+     * that started the chain; its next send announces it again.
+     */
+    public void retractAnnouncement(ChainId id) {
+        Chain chain;
+        synchronized (sending) {
+            chain = sending.get(id);
+        }
+        if (chain != null) {
+            chain.announced.set(false);
+        }
+    }
+
+    private SecretKeySpec chainKey(ChainId id) {
+        SecretKeySpec key;
+        synchronized (chainKeys) {
+            key = chainKeys.get(id);
+        }
+        if (key != null) {
+            return key;
+        }
+        chainDerivations.incrementAndGet();
+        key = new SecretKeySpec(derivation.derive(id), HMAC_SHA256);
+        synchronized (chainKeys) {
+            SecretKeySpec raced = chainKeys.putIfAbsent(id, key);
+            return raced != null ? raced : key;
+        }
+    }
+
+    private SecretKey messageKey(SecretKeySpec chainKey, int iteration) {
+        messageKeyDerivations.incrementAndGet();
+        try {
+            Mac mac = MAC.get();
+            mac.init(chainKey);
+            mac.update((byte) (iteration >>> 24));
+            mac.update((byte) (iteration >>> 16));
+            mac.update((byte) (iteration >>> 8));
+            mac.update((byte) iteration);
+            return new SecretKeySpec(mac.doFinal(), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Sender message key derivation failed", e);
+        }
+    }
+
+    /** Chains currently cached for sending. */
+    public int size() {
+        synchronized (sending) {
+            return sending.size();
+        }
+    }
+
+    /** Chain keys derived so far (cache misses). */
+    public long chainDerivations() {
+        return chainDerivations.get();
+    }
+
+    /** Per-message keys derived so far. */
+    public long messageKeyDerivations() {
+        return messageKeyDerivations.get();
+    }
+
+    /** One sender's chain in one epoch. */
+    public final class Chain {
+
+        private final SecretKeySpec chainKey;
+        private final AtomicInteger nextIteration = new AtomicInteger();
+        private final AtomicBoolean announced = new AtomicBoolean();
+
+        private Chain(SecretKeySpec chainKey) {
+            this.chainKey = chainKey;
+        }
+
+        public int nextIteration() {
+            return nextIteration.getAndIncrement();
+        }
+
+        public SecretKey messageKey(int iteration) {
+            return SenderKeyChains.this.messageKey(chainKey, iteration);
+        }
+    }
+}
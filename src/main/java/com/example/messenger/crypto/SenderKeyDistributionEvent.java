@@ -0,0 +1,8 @@
+package com.example.messenger.crypto;
+
+/**
+ * Published when a sender starts a new sender-key chain (first message in a conversation epoch on
+ * this node). Carries identifiers only, never key material.
+ */
+public record SenderKeyDistributionEvent(long conversationId, long senderId, int epoch, int keyId) {
+}
@@ -28,6 +28,10 @@ public class Conversation {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
+    /** Sender-key epoch; bumping it makes every sender start a new key chain for this conversation. */
+    @Column(name = "sender_key_epoch", nullable = false)
+    private int senderKeyEpoch = 0;
+
     @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ConversationParticipant> participants = new ArrayList<>();
 
@@ -54,6 +58,15 @@ public class Conversation {
         return createdAt;
     }
 
+    public int getSenderKeyEpoch() {
+        return senderKeyEpoch;
+    }
+
+    /** Starts a new sender-key epoch, e.g. after a member leaves, so departed members' keys go stale. */
+    public void rotateSenderKeys() {
+        senderKeyEpoch++;
+    }
+
     public List<ConversationParticipant> getParticipants() {
         return participants;
     }
@@ -6,14 +6,18 @@ import java.time.Instant;
 
 /**
  * Join entity for the many-to-many relationship between conversations and users.
- * Tracks when a user joined and their role in the conversation.
+ * Tracks when a user joined and their role in the conversation. A user joins a conversation at most once.
  */
 @Entity
-@Table(name = "conversation_participant")
+@Table(name = "conversation_participant", uniqueConstraints = @UniqueConstraint(
+        name = "uk_conversation_participant", columnNames = {"conversation_id", "user_id"}))
 public class ConversationParticipant {
 
+    /** Sequence ids (allocated 50 at a time) so that a group's participants are inserted in one JDBC batch. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "conversation_participant_seq")
+    @SequenceGenerator(name = "conversation_participant_seq", sequenceName = "conversation_participant_id_seq",
+            allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -1,12 +1,15 @@
 package com.example.messenger.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
 
 /**
  * Persisted event for WebSocket distribution and resume capability.
  * Clients can request events after a given event ID to catch up.
+ * The payload is a JSON document, stored as {@code jsonb} on PostgreSQL.
  */
 @Entity
 @Table(name = "event")
@@ -22,10 +25,15 @@ public class Event {
     @Column(nullable = false, length = 64)
     private String type;
 
-    @Column(columnDefinition = "TEXT")
+    @JdbcTypeCode(SqlTypes.JSON)
     private String payload;
 
-    @Column(name = "created_at", nullable = false)
+    /** Message a {@code message} event carries, so the payload can be redacted when the message is deleted. */
+    @Column(name = "message_id")
+    private Long messageId;
+
+    /** Partition key of the {@code event} table; never updated so rows stay in their partition. */
+    @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
 
     protected Event() {}
@@ -36,6 +44,11 @@ public class Event {
         this.payload = payload;
     }
 
+    public Event(Long conversationId, String type, String payload, Long messageId) {
+        this(conversationId, type, payload);
+        this.messageId = messageId;
+    }
+
     public Long getId() {
         return id;
     }
@@ -52,6 +65,10 @@ public class Event {
         return payload;
     }
 
+    public Long getMessageId() {
+        return messageId;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,91 @@
+package com.example.messenger.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Claim on an idempotency key for a write other than a message send. The key is unique per
+ * (scope, owner); {@code resultId} records what the first request produced so retries can return it.
+ */
+@Entity
+@Table(name = "idempotency_claim")
+public class IdempotencyClaim {
+
+    /** Scope of keys sent with conversation creation; the owner is the requesting user. */
+    public static final String CREATE_CONVERSATION = "create_conversation";
+
+    @EmbeddedId
+    private Id id;
+
+    @Column(name = "result_id")
+    private Long resultId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    protected IdempotencyClaim() {}
+
+    public Id getId() {
+        return id;
+    }
+
+    public Long getResultId() {
+        return resultId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Embeddable
+    public static class Id implements Serializable {
+
+        @Column(nullable = false, length = 32)
+        private String scope;
+
+        @Column(name = "owner_id", nullable = false)
+        private Long ownerId;
+
+        @Column(name = "idempotency_key", nullable = false, length = 255)
+        private String idempotencyKey;
+
+        protected Id() {}
+
+        public Id(String scope, Long ownerId, String idempotencyKey) {
+            if (scope == null || ownerId == null || idempotencyKey == null || idempotencyKey.isBlank()) {
+                throw new IllegalArgumentException("scope, ownerId and idempotencyKey must be non-null and non-blank");
+            }
+            this.scope = scope;
+            this.ownerId = ownerId;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public Long getOwnerId() {
+            return ownerId;
+        }
+
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Id other
+                    && Objects.equals(scope, other.scope)
+                    && Objects.equals(ownerId, other.ownerId)
+                    && Objects.equals(idempotencyKey, other.idempotencyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, ownerId, idempotencyKey);
+        }
+    }
+}
@@ -17,26 +17,34 @@ public class Message {
     @ManyToOne(optional = false)
     private AppUser sender;
 
-    @Column(nullable = false, length = 4096)
-    private String body;
+    //encryption envelope from MessageCrypto.encryptBytes (bytea); decrypt with decryptBytes
+    @Column(nullable = false, length = 8192)
+    private byte[] body;
 
-    //timestamp of message object creation
-    @Column(nullable = false)
+    //timestamp of message object creation; partition key of the message table, so never updated
+    @Column(nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
 
     /** Unique per conversation; used for deduplication. Nullable for backward compatibility. */
     @Column(name = "idempotency_key", length = 255)
     private String idempotencyKey;
 
+    /**
+     * Tombstone: set when the sender deletes the message. The row stays so cursors and event resume keep
+     * working; reads skip it and {@code MessageCompactionService} later empties its body.
+     */
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
     protected Message() {}
 
-    public Message(Conversation conversation, AppUser sender, String body) {
+    public Message(Conversation conversation, AppUser sender, byte[] body) {
         this.conversation = conversation;
         this.sender = sender;
         this.body = body;
     }
 
-    public Message(Conversation conversation, AppUser sender, String body, String idempotencyKey) {
+    public Message(Conversation conversation, AppUser sender, byte[] body, String idempotencyKey) {
         this.conversation = conversation;
         this.sender = sender;
         this.body = body;
@@ -55,7 +63,7 @@ public class Message {
         return sender;
     }
 
-    public String getBody() {
+    public byte[] getBody() {
         return body;
     }
 
@@ -66,4 +74,19 @@ public class Message {
     public String getIdempotencyKey() {
         return idempotencyKey;
     }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public boolean isDeleted() {
+        return deletedAt != null;
+    }
+
+    /** Marks the message deleted; the body is scrubbed later by the compactor. */
+    public void markDeleted(Instant now) {
+        if (deletedAt == null) {
+            deletedAt = now;
+        }
+    }
 }
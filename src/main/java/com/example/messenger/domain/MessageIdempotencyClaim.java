@@ -0,0 +1,73 @@
+package com.example.messenger.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Claim on a message idempotency key. The primary key makes (conversation, key) unique; a send inserts
+ * its claim before the message, so of two concurrent retries only one ever inserts a message.
+ */
+@Entity
+@Table(name = "message_idempotency_claim")
+public class MessageIdempotencyClaim {
+
+    @EmbeddedId
+    private Id id;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    protected MessageIdempotencyClaim() {}
+
+    public MessageIdempotencyClaim(MessageIdempotencyKey key) {
+        this.id = new Id(key.conversationId(), key.key());
+    }
+
+    public Id getId() {
+        return id;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Embeddable
+    public static class Id implements Serializable {
+
+        @Column(name = "conversation_id", nullable = false)
+        private Long conversationId;
+
+        @Column(name = "idempotency_key", nullable = false, length = 255)
+        private String idempotencyKey;
+
+        protected Id() {}
+
+        public Id(Long conversationId, String idempotencyKey) {
+            this.conversationId = conversationId;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        public Long getConversationId() {
+            return conversationId;
+        }
+
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Id other
+                    && Objects.equals(conversationId, other.conversationId)
+                    && Objects.equals(idempotencyKey, other.idempotencyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(conversationId, idempotencyKey);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.messenger.domain;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Progress of the message re-encryption job towards one target key id: the last message id it has
+ * processed, how many bodies it could not decrypt and left under their old key, and, once the table is
+ * fully scanned with none left behind, when it finished.
+ */
+@Entity
+@Table(name = "crypto_reencryption_checkpoint")
+public class ReencryptionCheckpoint {
+
+    @Id
+    @Column(name = "key_id")
+    private Integer keyId;
+
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId = 0L;
+
+    @Column(nullable = false)
+    private Long rewritten = 0L;
+
+    @Column(nullable = false)
+    private Long failed = 0L;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    protected ReencryptionCheckpoint() {}
+
+    public ReencryptionCheckpoint(Integer keyId) {
+        this.keyId = keyId;
+    }
+
+    public Integer getKeyId() {
+        return keyId;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public Long getRewritten() {
+        return rewritten;
+    }
+
+    /** Bodies skipped because they could not be decrypted; they still need an old key. */
+    public Long getFailed() {
+        return failed;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public boolean isCompleted() {
+        return completedAt != null;
+    }
+
+    /** Records a processed batch ending at {@code lastMessageId} in which {@code rewritten} bodies changed. */
+    public void advance(long lastMessageId, int rewritten) {
+        advance(lastMessageId, rewritten, 0);
+    }
+
+    /** As {@link #advance(long, int)}, also counting {@code failed} bodies that could not be decrypted. */
+    public void advance(long lastMessageId, int rewritten, int failed) {
+        this.lastMessageId = lastMessageId;
+        this.rewritten += rewritten;
+        this.failed += failed;
+        this.updatedAt = Instant.now();
+    }
+
+    /**
+     * Marks the scan finished.
+     * @throws IllegalStateException if bodies were skipped: they are still under an old key
+     */
+    public void complete(Instant now) {
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " bodies were not re-encrypted to key " + keyId);
+        }
+        this.completedAt = now;
+        this.updatedAt = now;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.messenger.dto;
+
+import java.util.List;
+
+/**
+ * Payload of the {@code membership} event: one event per bulk add or remove, listing every user that
+ * joined or left and the resulting member count and sender-key epoch. Also returned by the
+ * participants endpoints.
+ */
+public record MembershipEventPayload(List<Long> added, List<Long> removed, int memberCount, int senderKeyEpoch) {
+}
@@ -0,0 +1,8 @@
+package com.example.messenger.dto;
+
+/**
+ * Payload of a {@code message_deleted} event: the sender deleted message {@code id}. Clients drop it
+ * from their view; {@code deletedAt} is an ISO-8601 string.
+ */
+public record MessageDeletedEventPayload(long id, String deletedAt) {
+}
@@ -0,0 +1,14 @@
+package com.example.messenger.dto;
+
+/**
+ * Payload of a {@code message} event. Serialized once when the event is published; the resulting
+ * JSON is stored in {@code event.payload} and embedded verbatim in WebSocket frames.
+ * {@code createdAt} is an ISO-8601 string so the format does not depend on mapper modules.
+ */
+public record MessageEventPayload(
+        long id,
+        long senderId,
+        String senderUsername,
+        String body,
+        String createdAt
+) {}
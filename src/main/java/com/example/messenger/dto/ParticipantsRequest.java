@@ -0,0 +1,29 @@
+package com.example.messenger.dto;
+
+import com.example.messenger.domain.Conversation;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class ParticipantsRequest {
+
+    @NotEmpty(message = "At least one user ID is required")
+    @Size(max = Conversation.MAX_GROUP_MEMBERS, message = "At most " + Conversation.MAX_GROUP_MEMBERS + " user IDs per request")
+    private List<@NotNull Long> userIds;
+
+    public ParticipantsRequest() {}
+
+    public ParticipantsRequest(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.messenger.dto;
+
+/**
+ * Payload of the {@code sender_key} event: a participant started a new sender-key chain. Identifiers
+ * only; key material never leaves the server.
+ */
+public record SenderKeyEventPayload(long senderId, int epoch, int keyId) {
+}
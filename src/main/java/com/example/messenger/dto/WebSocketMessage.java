@@ -2,6 +2,9 @@ package com.example.messenger.dto;
 
 /**
  * DTO for events sent over the WebSocket. Includes event ID for resume capability.
+ * {@code payload} holds the event's stored JSON document as a string; clients parse it themselves.
+ * This is the {@code messenger.v1.json} format, used when no subprotocol is requested; see
+ * {@link WebSocketMessageV2} for the nested-object variant.
  */
 public record WebSocketMessage(
         long eventId,
@@ -0,0 +1,16 @@
+package com.example.messenger.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * Event frame for clients that select the {@code messenger.v2.json} subprotocol. Same fields as
+ * {@link WebSocketMessage}, but {@code payload} is written as a nested JSON value taken verbatim from
+ * the stored document, so it is neither escaped by the server nor re-parsed by the client.
+ */
+public record WebSocketMessageV2(
+        long eventId,
+        long conversationId,
+        String type,
+        @JsonRawValue String payload,
+        String createdAt
+) {}
@@ -1,9 +1,13 @@
 package com.example.messenger.repository;
 
 import com.example.messenger.domain.ConversationParticipant;
+import com.example.messenger.domain.ParticipantRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /** Repository for conversation participants. Used for participant lookups and max-50 validation. */
@@ -17,4 +21,20 @@ public interface ConversationParticipantRepository extends JpaRepository<Convers
     /** User IDs of participants in a conversation (for WebSocket fanout). */
     @Query("SELECT p.user.id FROM ConversationParticipant p WHERE p.conversation.id = :conversationId")
     List<Long> findUserIdsByConversationId(Long conversationId);
+
+    /** User id and role of one participant. */
+    interface MemberRow {
+        Long getUserId();
+        ParticipantRole getRole();
+    }
+
+    /** Members of a conversation with their roles, in one query (for membership changes). */
+    @Query("SELECT p.user.id AS userId, p.role AS role FROM ConversationParticipant p WHERE p.conversation.id = :conversationId")
+    List<MemberRow> findMembersByConversationId(@Param("conversationId") Long conversationId);
+
+    /** Removes the given users from a conversation in one statement; returns the number of rows deleted. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM ConversationParticipant p WHERE p.conversation.id = :conversationId AND p.user.id IN :userIds")
+    int deleteByConversationIdAndUserIdIn(@Param("conversationId") Long conversationId,
+                                          @Param("userIds") Collection<Long> userIds);
 }
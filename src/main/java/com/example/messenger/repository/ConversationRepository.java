@@ -1,11 +1,14 @@
 package com.example.messenger.repository;
 
 import com.example.messenger.domain.Conversation;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 /** CRUD for conversations. */
 public interface ConversationRepository extends JpaRepository<Conversation, Long> {
@@ -13,4 +16,12 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     /** Find all conversations where the given user is a participant. */
     @Query("SELECT c FROM Conversation c JOIN c.participants p WHERE p.user.id = :userId")
     List<Conversation> findByParticipantUserId(@Param("userId") Long userId);
+
+    /**
+     * Loads the conversation and row-locks it ({@code SELECT ... FOR UPDATE}) until the transaction
+     * ends; serializes membership changes so the member limit cannot be overrun by concurrent adds.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Conversation c WHERE c.id = :id")
+    Optional<Conversation> findByIdForUpdate(@Param("id") Long id);
 }
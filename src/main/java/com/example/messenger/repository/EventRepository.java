@@ -3,11 +3,30 @@ package com.example.messenger.repository;
 import com.example.messenger.domain.Event;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 
 /** Repository for events; supports resume via event ID. */
 public interface EventRepository extends JpaRepository<Event, Long> {
 
     List<Event> findByConversationIdAndIdGreaterThanOrderByIdAsc(Long conversationId, Long afterId, Pageable pageable);
+
+    /** Retention: deletes at most {@code limit} events created before the cutoff (uses the created_at index). */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = "DELETE FROM event WHERE id IN "
+            + "(SELECT id FROM event WHERE created_at < :cutoff ORDER BY created_at LIMIT :limit)",
+            nativeQuery = true)
+    int deleteBatchCreatedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    /** Replaces the payload of the events carrying a message (uses the message_id partial index). */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Event e SET e.payload = :payload WHERE e.conversationId = :conversationId AND e.messageId = :messageId")
+    int replaceMessagePayload(@Param("conversationId") Long conversationId, @Param("messageId") Long messageId,
+                              @Param("payload") String payload);
 }
@@ -0,0 +1,43 @@
+package com.example.messenger.repository;
+
+import com.example.messenger.domain.IdempotencyClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/** Repository for idempotency claims on conversation and membership writes. */
+public interface IdempotencyClaimRepository extends JpaRepository<IdempotencyClaim, IdempotencyClaim.Id> {
+
+    /**
+     * Claims a key for the calling transaction. Returns 1 if the key was free, 0 if it is already
+     * claimed; a claim held by an uncommitted transaction blocks until that transaction ends.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_claim (scope, owner_id, idempotency_key, created_at) "
+            + "VALUES (:scope, :ownerId, :key, :createdAt) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int claim(@Param("scope") String scope, @Param("ownerId") Long ownerId, @Param("key") String key,
+              @Param("createdAt") Instant createdAt);
+
+    /** Records the result of the request holding the claim. */
+    @Modifying
+    @Query("UPDATE IdempotencyClaim c SET c.resultId = :resultId WHERE c.id = :id")
+    int complete(@Param("id") IdempotencyClaim.Id id, @Param("resultId") Long resultId);
+
+    @Query("SELECT c.resultId FROM IdempotencyClaim c WHERE c.id = :id")
+    Optional<Long> findResultId(@Param("id") IdempotencyClaim.Id id);
+
+    /** Retention: deletes at most {@code limit} claims created before the cutoff (uses the created_at index). */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_claim WHERE (scope, owner_id, idempotency_key) IN "
+            + "(SELECT scope, owner_id, idempotency_key FROM idempotency_claim "
+            + "WHERE created_at < :cutoff ORDER BY created_at LIMIT :limit)",
+            nativeQuery = true)
+    int deleteBatchCreatedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
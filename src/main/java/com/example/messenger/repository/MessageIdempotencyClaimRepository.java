@@ -0,0 +1,35 @@
+package com.example.messenger.repository;
+
+import com.example.messenger.domain.MessageIdempotencyClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/** Repository for message idempotency claims. */
+public interface MessageIdempotencyClaimRepository
+        extends JpaRepository<MessageIdempotencyClaim, MessageIdempotencyClaim.Id> {
+
+    /**
+     * Claims a key for the calling transaction. Returns 1 if the key was free, 0 if it is already
+     * claimed; a claim held by an uncommitted transaction blocks until that transaction ends.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO message_idempotency_claim (conversation_id, idempotency_key, created_at) "
+            + "VALUES (:conversationId, :key, :createdAt) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int claim(@Param("conversationId") Long conversationId, @Param("key") String key,
+              @Param("createdAt") Instant createdAt);
+
+    /** Retention: deletes at most {@code limit} claims created before the cutoff (uses the created_at index). */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = "DELETE FROM message_idempotency_claim WHERE (conversation_id, idempotency_key) IN "
+            + "(SELECT conversation_id, idempotency_key FROM message_idempotency_claim "
+            + "WHERE created_at < :cutoff ORDER BY created_at LIMIT :limit)",
+            nativeQuery = true)
+    int deleteBatchCreatedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
@@ -3,6 +3,10 @@ package com.example.messenger.repository;
 import com.example.messenger.domain.Message;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,14 +14,51 @@ import java.util.Optional;
 /** Repository for messages. */
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
-    List<Message> findByConversationIdOrderByCreatedAtAsc(Long conversationId);
+    /** Visible (not deleted) messages, oldest first. */
+    List<Message> findByConversationIdAndDeletedAtIsNullOrderByCreatedAtAsc(Long conversationId);
 
-    /** Cursor pagination: first page (oldest first). */
-    List<Message> findByConversationIdOrderByIdAsc(Long conversationId, Pageable pageable);
+    /** Cursor pagination: first page of visible messages (oldest first). */
+    List<Message> findByConversationIdAndDeletedAtIsNullOrderByIdAsc(Long conversationId, Pageable pageable);
 
-    /** Cursor pagination: messages after cursor (oldest first). */
-    List<Message> findByConversationIdAndIdGreaterThanOrderByIdAsc(Long conversationId, Long afterId, Pageable pageable);
+    /** Cursor pagination: visible messages after cursor (oldest first). */
+    List<Message> findByConversationIdAndIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(Long conversationId, Long afterId,
+                                                                                   Pageable pageable);
 
-    /** For idempotency: find existing message by conversation and idempotency key. */
-    Optional<Message> findByConversationIdAndIdempotencyKey(Long conversationId, String idempotencyKey);
+    /**
+     * For idempotency: the newest message sent with the key in the conversation. Claims are purged after
+     * their TTL while the key stays on the message, so a key reused after the purge can appear on several
+     * messages; the current claim belongs to the newest.
+     */
+    Optional<Message> findFirstByConversationIdAndIdempotencyKeyOrderByIdDesc(Long conversationId, String idempotencyKey);
+
+    /** Id, conversation and stored body only; what the re-encryption job needs without loading the entity graph. */
+    interface BodyRow {
+        Long getId();
+        Long getConversationId();
+        byte[] getBody();
+    }
+
+    /** Re-encryption: the next batch of bodies after {@code afterId}, in id order; deleted messages are skipped. */
+    @Query("SELECT m.id AS id, m.conversation.id AS conversationId, m.body AS body "
+            + "FROM Message m WHERE m.id > :afterId AND m.deletedAt IS NULL ORDER BY m.id")
+    List<BodyRow> findBodiesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Re-encryption: replaces a body only if it still holds {@code expected}, so a concurrent change
+     * to the row is never overwritten with a stale rewrite. Returns 1 if replaced, 0 otherwise.
+     */
+    @Modifying
+    @Query("UPDATE Message m SET m.body = :body WHERE m.id = :id AND m.body = :expected")
+    int replaceBody(@Param("id") Long id, @Param("expected") byte[] expected, @Param("body") byte[] body);
+
+    /**
+     * Compaction: replaces the bodies of at most {@code limit} deleted, not yet scrubbed messages with
+     * {@code empty} (uses the pending-scrub partial index). Returns the number of rows scrubbed.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = "UPDATE message SET body = :empty WHERE id IN "
+            + "(SELECT id FROM message WHERE deleted_at IS NOT NULL AND octet_length(body) > 0 ORDER BY id LIMIT :limit)",
+            nativeQuery = true)
+    int scrubDeletedBodies(@Param("empty") byte[] empty, @Param("limit") int limit);
 }
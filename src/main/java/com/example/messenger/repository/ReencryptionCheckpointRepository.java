@@ -0,0 +1,8 @@
+package com.example.messenger.repository;
+
+import com.example.messenger.domain.ReencryptionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/** Checkpoints of the message re-encryption job, one per target key id. */
+public interface ReencryptionCheckpointRepository extends JpaRepository<ReencryptionCheckpoint, Integer> {
+}
@@ -2,10 +2,31 @@ package com.example.messenger.repository;
 
 import com.example.messenger.domain.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
     Optional<RefreshToken> findByToken(String token);
     void deleteByUserId(Long userId);
+
+    /** Retention: deletes at most {@code limit} tokens that expired before the cutoff (uses the expires_at index). */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = "DELETE FROM refresh_token WHERE id IN "
+            + "(SELECT id FROM refresh_token WHERE expires_at < :cutoff ORDER BY expires_at LIMIT :limit)",
+            nativeQuery = true)
+    int deleteBatchExpiredBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    /** Retention: deletes at most {@code limit} revoked tokens (uses the partial revoked index). */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = "DELETE FROM refresh_token WHERE id IN "
+            + "(SELECT id FROM refresh_token WHERE revoked = TRUE LIMIT :limit)",
+            nativeQuery = true)
+    int deleteBatchRevoked(@Param("limit") int limit);
 }
@@ -0,0 +1,85 @@
+package com.example.messenger.security;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link DelegatingPasswordEncoder} that also reports a hash as needing re-encoding when its cost
+ * parameters differ from the configured ones in either direction.
+ *
+ * <p>The stock encoders only ask for an upgrade when a hash is weaker than configured; lowering the
+ * BCrypt work factor or Argon2 memory to survive login storms would otherwise never take effect
+ * for existing users. Spring Security calls {@link #upgradeEncoding(String)} after each successful
+ * login and stores the fresh hash through {@code UserDetailsPasswordService}.
+ *
+ * <p>Hashes stored without an {@code {id}} prefix (written by the former plain
+ * {@code BCryptPasswordEncoder}) are verified as BCrypt and re-written with a prefix.
+ */
+public class RehashingPasswordEncoder implements PasswordEncoder {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+
+    private final DelegatingPasswordEncoder delegate;
+    private final String idForEncode;
+    private final int bcryptStrength;
+    private final String argon2Params;
+
+    public RehashingPasswordEncoder(String idForEncode, int bcryptStrength,
+                                    int argon2SaltLength, int argon2HashLength,
+                                    int argon2Parallelism, int argon2MemoryKb, int argon2Iterations) {
+        if (!BCRYPT.equals(idForEncode) && !ARGON2.equals(idForEncode)) {
+            throw new IllegalArgumentException("Unsupported password encoder: " + idForEncode);
+        }
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(ARGON2, new Argon2PasswordEncoder(
+                argon2SaltLength, argon2HashLength, argon2Parallelism, argon2MemoryKb, argon2Iterations));
+        this.delegate = new DelegatingPasswordEncoder(idForEncode, encoders);
+        this.delegate.setDefaultPasswordEncoderForMatches(bcrypt);
+        this.idForEncode = idForEncode;
+        this.bcryptStrength = bcryptStrength;
+        this.argon2Params = "m=" + argon2MemoryKb + ",t=" + argon2Iterations + ",p=" + argon2Parallelism;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        // Missing or different {id}, or a weaker hash of the current algorithm
+        if (delegate.upgradeEncoding(encodedPassword)) {
+            return true;
+        }
+        return !hasCurrentParameters(encodedPassword.substring(encodedPassword.indexOf('}') + 1));
+    }
+
+    /** Compares the cost segment of the hash: {@code $2a$<cost>$...} or {@code $argon2id$v=19$m=..,t=..,p=..$...}. */
+    private boolean hasCurrentParameters(String hash) {
+        String[] parts = hash.split("\\$");
+        if (BCRYPT.equals(idForEncode)) {
+            try {
+                return parts.length > 2 && Integer.parseInt(parts[2]) == bcryptStrength;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return parts.length > 3 && argon2Params.equals(parts[3]);
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.messenger.service;
 
+import com.example.messenger.config.PasswordHashingConfig;
 import com.example.messenger.domain.AppUser;
 import com.example.messenger.domain.RefreshToken;
 import com.example.messenger.dto.AuthRequest;
 import com.example.messenger.dto.AuthResponse;
 import com.example.messenger.repository.AppUserRepository;
 import com.example.messenger.security.JwtTokenProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -15,6 +17,11 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class AuthService {
 
@@ -23,18 +30,24 @@ public class AuthService {
     private final JwtTokenProvider jwtTokenProvider;
     private final TokenService tokenService;
     private final AuthenticationManager authenticationManager;
+    private final Executor authExecutor;
+    private final long authTimeoutMs;
 
     public AuthService(
             AppUserRepository appUserRepository,
             PasswordEncoder passwordEncoder,
             JwtTokenProvider jwtTokenProvider,
             TokenService tokenService,
-            AuthenticationManager authenticationManager) {
+            AuthenticationManager authenticationManager,
+            @Qualifier("authExecutor") Executor authExecutor,
+            PasswordHashingConfig passwordConfig) {
         this.appUserRepository = appUserRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtTokenProvider = jwtTokenProvider;
         this.tokenService = tokenService;
         this.authenticationManager = authenticationManager;
+        this.authExecutor = authExecutor;
+        this.authTimeoutMs = passwordConfig.getAuthTimeoutMs();
     }
 
     @Transactional
@@ -69,15 +82,35 @@ public class AuthService {
         return new AuthResponse(accessToken, refreshTokenString, user.getId(), user.getUsername(), user.getEmail());
     }
 
+    /**
+     * Blocking form of {@link #loginAsync}, for callers that are not request handlers.
+     * @throws java.util.concurrent.RejectedExecutionException if the auth pool and its queue are full
+     */
     public AuthResponse login(AuthRequest request) {
-        // Authenticate user
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getUsernameOrEmail(),
-                        request.getPassword()
-                )
-        );
+        try {
+            return loginAsync(request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
+    /**
+     * Verifies the password on the bounded auth executor and issues tokens there; the calling thread
+     * returns immediately. The future fails with {@link java.util.concurrent.TimeoutException} if the
+     * login has not completed within {@code security.password.auth-timeout-ms}.
+     * @throws java.util.concurrent.RejectedExecutionException if the auth pool and its queue are full
+     */
+    public CompletableFuture<AuthResponse> loginAsync(AuthRequest request) {
+        UsernamePasswordAuthenticationToken token =
+                new UsernamePasswordAuthenticationToken(request.getUsernameOrEmail(), request.getPassword());
+        return CompletableFuture.supplyAsync(() -> issueTokens(authenticationManager.authenticate(token)), authExecutor)
+                .orTimeout(authTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private AuthResponse issueTokens(Authentication authentication) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         AppUser user = appUserRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
@@ -108,4 +141,5 @@ public class AuthService {
 
         return new AuthResponse(accessToken, newRefreshToken.getToken(), user.getId(), user.getUsername(), user.getEmail());
     }
+
 }
@@ -0,0 +1,68 @@
+package com.example.messenger.service;
+
+import com.example.messenger.domain.ConversationType;
+import com.example.messenger.websocket.DeliveryStamp;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event delivery latency, end to end and by stage, tagged by conversation type.
+ *
+ * <ul>
+ *   <li>{@code messenger.delivery.latency}: event persisted until its frame was written to a
+ *       recipient session, recorded once per session</li>
+ *   <li>{@code messenger.delivery.stage} with {@code stage}:
+ *       {@code persist} (event insert), {@code lookup} (participant query), {@code serialize}
+ *       (frame encoding), {@code write} (fan-out start until the frame reached the socket,
+ *       including executor and send-buffer wait; per session)</li>
+ * </ul>
+ * Both publish percentile histograms so p50/p99 can be aggregated across nodes.
+ */
+@Component
+public class DeliveryMetrics implements DeliveryStamp.Listener {
+
+    public static final String STAGE_PERSIST = "persist";
+    public static final String STAGE_LOOKUP = "lookup";
+    public static final String STAGE_SERIALIZE = "serialize";
+    public static final String STAGE_WRITE = "write";
+
+    private static final String UNKNOWN_TYPE = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public DeliveryMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Tag value for a conversation type; {@code unknown} when the caller did not supply one. */
+    public static String typeTag(ConversationType conversationType) {
+        return conversationType != null ? conversationType.name() : UNKNOWN_TYPE;
+    }
+
+    public void recordStage(String stage, String conversationType, long nanos) {
+        timers.computeIfAbsent(stage + '|' + conversationType, k -> Timer.builder("messenger.delivery.stage")
+                        .description("Event delivery time by stage")
+                        .tag("stage", stage)
+                        .tag("conversation_type", conversationType)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onWritten(DeliveryStamp stamp, long writtenNanos) {
+        recordStage(STAGE_WRITE, stamp.conversationType(), writtenNanos - stamp.readyNanos());
+        timers.computeIfAbsent("latency|" + stamp.conversationType(), k -> Timer.builder("messenger.delivery.latency")
+                        .description("Time from event persisted to frame written to a recipient session")
+                        .tag("conversation_type", stamp.conversationType())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(writtenNanos - stamp.persistedNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -1,28 +1,57 @@
 package com.example.messenger.service;
 
+import com.example.messenger.config.JsonWriters;
+import com.example.messenger.config.WebSocketSessionConfig;
+import com.example.messenger.domain.ConversationType;
 import com.example.messenger.domain.Event;
 import com.example.messenger.dto.WebSocketMessage;
+import com.example.messenger.dto.WebSocketMessageV2;
 import com.example.messenger.repository.ConversationParticipantRepository;
 import com.example.messenger.repository.EventRepository;
+import com.example.messenger.websocket.BinaryEventCodec;
+import com.example.messenger.websocket.DeliveryStamp;
+import com.example.messenger.websocket.EventWireFormat;
+import com.example.messenger.websocket.RegisteredSession;
+import com.example.messenger.websocket.SessionRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Creates events for conversations and distributes them to connected WebSocket sessions.
- * Tracks sessions by user ID for fanout to conversation participants.
+ * Sessions are tracked by user ID in the {@link SessionRegistry} for fanout to conversation participants.
+ *
+ * <p>Registered sessions are wrapped in a {@link ConcurrentWebSocketSessionDecorator}, so concurrent
+ * publishes to the same recipient never interleave writes: one thread sends while the others buffer
+ * and return. Sessions that exceed the limits in {@link WebSocketSessionConfig}, whether in the
+ * decorator or in the {@link RegisteredSession#sendInOrder outbox}, are closed.
+ *
+ * <p>Each event is encoded at most once per {@link EventWireFormat}: JSON text frames with the payload
+ * as a string for the default subprotocol, JSON text frames with the payload as a nested object for
+ * {@code messenger.v2.json}, and {@link BinaryEventCodec} frames for {@code messenger.v1.bin} sessions.
+ *
+ * <p>Publishing is split into {@link #record} (persist) and {@link #deliver} (lookup, serialize,
+ * fan-out); {@link DeliveryMetrics} times each stage and, through a {@link DeliveryStamp} on every
+ * frame, the moment the frame is written to each recipient socket.
  */
 @Service
 public class EventService {
@@ -31,54 +60,214 @@ public class EventService {
 
     private final EventRepository eventRepository;
     private final ConversationParticipantRepository participantRepository;
-    private final ObjectMapper objectMapper;
+    private final JsonWriters jsonWriters;
+    private final TaskExecutor fanoutExecutor;
+    private final WebSocketSessionConfig sessionConfig;
+    private final SessionRegistry sessionRegistry;
+    private final DeliveryMetrics deliveryMetrics;
     private final Counter eventsPublishedCounter;
-
-    /** User ID -> set of WebSocket sessions (thread-safe). */
-    private final Map<Long, Set<WebSocketSession>> sessionsByUserId = new ConcurrentHashMap<>();
+    private final Counter overflowClosedCounter;
+    private final Timer sendTimer;
+    private final DistributionSummary bufferSizeSummary;
+    private final Counter bytesOutDeflate;
+    private final Counter bytesOutPlain;
+    private final Counter bytesInDeflate;
+    private final Counter bytesInPlain;
 
     public EventService(
             EventRepository eventRepository,
             ConversationParticipantRepository participantRepository,
-            ObjectMapper objectMapper,
+            JsonWriters jsonWriters,
+            @Qualifier("fanoutExecutor") TaskExecutor fanoutExecutor,
+            WebSocketSessionConfig sessionConfig,
+            SessionRegistry sessionRegistry,
+            DeliveryMetrics deliveryMetrics,
             MeterRegistry meterRegistry
     ) {
         this.eventRepository = eventRepository;
         this.participantRepository = participantRepository;
-        this.objectMapper = objectMapper;
+        this.jsonWriters = jsonWriters;
+        this.fanoutExecutor = fanoutExecutor;
+        this.sessionConfig = sessionConfig;
+        this.sessionRegistry = sessionRegistry;
+        this.deliveryMetrics = deliveryMetrics;
         this.eventsPublishedCounter = Counter.builder("messenger.events.published")
                 .description("Total events published to WebSocket sessions")
                 .register(meterRegistry);
+        this.overflowClosedCounter = Counter.builder("messenger.websocket.overflow.closed")
+                .description("WebSocket sessions closed for exceeding the send-time or buffer-size limit")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("messenger.websocket.send.duration")
+                .description("Time to hand an event frame to a WebSocket session (write or buffer)")
+                .register(meterRegistry);
+        this.bufferSizeSummary = DistributionSummary.builder("messenger.websocket.send.buffer")
+                .description("Bytes buffered for a WebSocket session after each send")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.bytesOutDeflate = bytesCounter("out", "deflate", meterRegistry);
+        this.bytesOutPlain = bytesCounter("out", "none", meterRegistry);
+        this.bytesInDeflate = bytesCounter("in", "deflate", meterRegistry);
+        this.bytesInPlain = bytesCounter("in", "none", meterRegistry);
+    }
+
+    private static Counter bytesCounter(String direction, String compression, MeterRegistry meterRegistry) {
+        // the container compresses below this layer, so only the payload size before compression is visible here
+        return Counter.builder("messenger.websocket.payload.bytes")
+                .description("WebSocket payload bytes before compression, by direction and whether permessage-deflate was negotiated")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .tag("negotiated_compression", compression)
+                .register(meterRegistry);
     }
 
     /** Returns the total number of active WebSocket connections across all users. */
     public int getActiveConnectionCount() {
-        return sessionsByUserId.values().stream()
-                .mapToInt(Set::size)
-                .sum();
+        return sessionRegistry.getConnectionCount();
     }
 
     public void registerSession(Long userId, WebSocketSession session) {
-        sessionsByUserId.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(session);
+        sessionRegistry.register(new RegisteredSession(
+                userId,
+                session,
+                deliveryMetrics,
+                sessionConfig.getSendTimeLimitMs(),
+                sessionConfig.getBufferSizeLimitBytes(),
+                sessionConfig.getOverflowStrategy()
+        ));
     }
 
     public void unregisterSession(Long userId, WebSocketSession session) {
-        Set<WebSocketSession> set = sessionsByUserId.get(userId);
-        if (set != null) {
-            set.remove(session);
-            if (set.isEmpty()) {
-                sessionsByUserId.remove(userId);
-            }
+        sessionRegistry.unregister(userId, session.getId());
+    }
+
+    /**
+     * Records inbound activity (pong or any client frame) so the heartbeat does not reap the session,
+     * and counts the frame's payload bytes.
+     */
+    public void touchSession(Long userId, WebSocketSession session, int payloadBytes) {
+        RegisteredSession registered = sessionRegistry.touch(userId, session.getId(), System.currentTimeMillis());
+        if (registered != null && payloadBytes > 0) {
+            registered.addBytesIn(payloadBytes);
+            (registered.isCompressed() ? bytesInDeflate : bytesInPlain).increment(payloadBytes);
         }
     }
 
     /**
-     * Persists an event and pushes it to all WebSocket sessions of conversation participants.
+     * Serializes the payload once and publishes it; see {@link #publish(Long, ConversationType, String, String)}.
+     */
+    public void publish(Long conversationId, String type, Object payload) {
+        publish(conversationId, null, type, payload);
+    }
+
+    /**
+     * Serializes the payload once and publishes it. Serialization failures are logged and the event
+     * is dropped.
      */
+    public void publish(Long conversationId, ConversationType conversationType, String type, Object payload) {
+        Event event = record(conversationId, conversationType, type, payload);
+        if (event != null) {
+            deliver(event, conversationType, System.nanoTime());
+        }
+    }
+
+    /** Publishes a pre-serialized JSON payload; see {@link #publish(Long, ConversationType, String, String)}. */
     public void publish(Long conversationId, String type, String payload) {
-        Event event = new Event(conversationId, type, payload);
-        event = eventRepository.save(event);
+        publish(conversationId, null, type, payload);
+    }
+
+    /**
+     * Persists an event and pushes it to all WebSocket sessions of conversation participants.
+     * {@code payload} must be a JSON document; it is stored as-is and embedded in frames without
+     * re-parsing. {@code conversationType} only tags delivery metrics and may be null.
+     */
+    public void publish(Long conversationId, ConversationType conversationType, String type, String payload) {
+        Event event = record(conversationId, type, payload, conversationType);
+        deliver(event, conversationType, System.nanoTime());
+    }
+
+    /**
+     * Serializes the payload once and persists the event without delivering it; pair with
+     * {@link #deliver} once the surrounding transaction has committed. Returns null, after logging, if
+     * the payload cannot be serialized.
+     */
+    public Event record(Long conversationId, ConversationType conversationType, String type, Object payload) {
+        return record(conversationId, conversationType, type, payload, null);
+    }
+
+    /**
+     * As {@link #record(Long, ConversationType, String, Object)}, tagging the event with the message it
+     * carries so {@link #redactMessage} can find it.
+     */
+    public Event record(Long conversationId, ConversationType conversationType, String type, Object payload,
+                        Long messageId) {
+        String json = serialize(conversationId, type, payload);
+        if (json == null) {
+            return null;
+        }
+        return record(conversationId, type, json, conversationType, messageId);
+    }
+
+    /** Persists the event row; the first half of {@link #publish}. */
+    public Event record(Long conversationId, String type, String payload, ConversationType conversationType) {
+        return record(conversationId, type, payload, conversationType, null);
+    }
+
+    /**
+     * Overwrites the stored payload of every event carrying {@code messageId}, e.g. with a copy without
+     * the body once the message is deleted, so clients resuming from the event log no longer get the
+     * content. Returns the number of events rewritten.
+     */
+    public int redactMessage(Long conversationId, Long messageId, Object redactedPayload) {
+        String json = serialize(conversationId, "redacted", redactedPayload);
+        if (json == null) {
+            throw new IllegalStateException("Cannot serialize redacted payload for message " + messageId);
+        }
+        return eventRepository.replaceMessagePayload(conversationId, messageId, json);
+    }
+
+    private String serialize(Long conversationId, String type, Object payload) {
+        try {
+            return jsonWriters.forType(payload.getClass()).writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize {} event payload for conversation {}", type, conversationId, e);
+            return null;
+        }
+    }
+
+    private Event record(Long conversationId, String type, String payload, ConversationType conversationType,
+                         Long messageId) {
+        long start = System.nanoTime();
+        Event event = eventRepository.save(new Event(conversationId, type, payload, messageId));
         eventsPublishedCounter.increment();
+        deliveryMetrics.recordStage(DeliveryMetrics.STAGE_PERSIST, DeliveryMetrics.typeTag(conversationType),
+                System.nanoTime() - start);
+        return event;
+    }
+
+    /**
+     * Pushes a persisted event to the open sessions of all participants. Each send is queued on its
+     * session ({@link RegisteredSession#sendInOrder}) and written by that session's single writer on the
+     * fanout executor (inline in platform-thread mode), so a session sees events in delivery order. {@code persistedNanos} is the {@code System.nanoTime()}
+     * at which the event was saved and anchors {@code messenger.delivery.latency}.
+     */
+    public void deliver(Event event, ConversationType conversationType, long persistedNanos) {
+        deliver(event, conversationType, persistedNanos, List.of());
+    }
+
+    /**
+     * As {@link #deliver(Event, ConversationType, long)}, and also to {@code formerParticipantIds}: users
+     * a membership change has just removed, who are no longer participants but must learn they left.
+     */
+    public void deliver(Event event, ConversationType conversationType, long persistedNanos,
+                        Collection<Long> formerParticipantIds) {
+        String typeTag = DeliveryMetrics.typeTag(conversationType);
+
+        long lookupStart = System.nanoTime();
+        Set<Long> participantUserIds = new LinkedHashSet<>(
+                participantRepository.findUserIdsByConversationId(event.getConversationId()));
+        participantUserIds.addAll(formerParticipantIds);
+        long serializeStart = System.nanoTime();
+        deliveryMetrics.recordStage(DeliveryMetrics.STAGE_LOOKUP, typeTag, serializeStart - lookupStart);
 
         WebSocketMessage msg = new WebSocketMessage(
                 event.getId(),
@@ -87,28 +276,110 @@ public class EventService {
                 event.getPayload(),
                 event.getCreatedAt().toString()
         );
-        String json;
+        TextMessage frame;
         try {
-            json = objectMapper.writeValueAsString(msg);
+            // TextMessage keeps its payload as a String, so writing bytes would only add a UTF-8 decode
+            frame = new TextMessage(jsonWriters.webSocketMessage().writeValueAsString(msg));
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize event {}", event.getId(), e);
             return;
         }
+        long readyNanos = System.nanoTime();
+        deliveryMetrics.recordStage(DeliveryMetrics.STAGE_SERIALIZE, typeTag, readyNanos - serializeStart);
+        DeliveryStamp textStamp = new DeliveryStamp(frame, persistedNanos, readyNanos, typeTag);
 
-        List<Long> participantUserIds = participantRepository.findUserIdsByConversationId(conversationId);
+        DeliveryStamp binaryStamp = null;
+        DeliveryStamp textV2Stamp = null;
         for (Long userId : participantUserIds) {
-            Set<WebSocketSession> sessions = sessionsByUserId.get(userId);
-            if (sessions != null) {
-                for (WebSocketSession session : sessions) {
-                    if (session.isOpen()) {
-                        try {
-                            session.sendMessage(new TextMessage(json));
-                        } catch (IOException e) {
-                            log.warn("Failed to send event to session {}: {}", session.getId(), e.getMessage());
+            for (RegisteredSession session : sessionRegistry.sessionsFor(userId)) {
+                if (!session.isOpen()) {
+                    continue;
+                }
+                DeliveryStamp stamp;
+                if (session.getWireFormat() == EventWireFormat.BINARY) {
+                    if (binaryStamp == null) {
+                        binaryStamp = new DeliveryStamp(encodeBinary(event), persistedNanos, readyNanos, typeTag);
+                    }
+                    stamp = binaryStamp;
+                } else if (session.getWireFormat() == EventWireFormat.JSON_V2) {
+                    if (textV2Stamp == null) {
+                        TextMessage v2Frame = encodeTextV2(event);
+                        if (v2Frame == null) {
+                            continue;
                         }
+                        textV2Stamp = new DeliveryStamp(v2Frame, persistedNanos, readyNanos, typeTag);
                     }
+                    stamp = textV2Stamp;
+                } else {
+                    stamp = textStamp;
+                }
+                try {
+                    session.sendInOrder(() -> send(session, stamp), stamp.frame().getPayloadLength(), fanoutExecutor);
+                } catch (SessionLimitExceededException e) {
+                    closeSlow(session, e);
                 }
             }
         }
     }
+
+    /** The event as a {@code messenger.v2.json} frame, payload embedded as a nested object; null if it cannot be written. */
+    private TextMessage encodeTextV2(Event event) {
+        WebSocketMessageV2 msg = new WebSocketMessageV2(
+                event.getId(),
+                event.getConversationId(),
+                event.getType(),
+                event.getPayload(),
+                event.getCreatedAt().toString()
+        );
+        try {
+            return new TextMessage(jsonWriters.webSocketMessageV2().writeValueAsString(msg));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize event {}", event.getId(), e);
+            return null;
+        }
+    }
+
+    private static BinaryMessage encodeBinary(Event event) {
+        String payload = event.getPayload() != null ? event.getPayload() : "null";
+        return new BinaryMessage(BinaryEventCodec.encode(
+                event.getId(),
+                event.getConversationId(),
+                event.getCreatedAt(),
+                event.getType(),
+                payload.getBytes(StandardCharsets.UTF_8)
+        ));
+    }
+
+    private void send(RegisteredSession session, DeliveryStamp stamp) {
+        int length = stamp.frame().getPayloadLength();
+        Timer.Sample sample = Timer.start();
+        try {
+            session.expect(stamp);
+            session.sendMessage(stamp.frame());
+            session.addBytesOut(length);
+            (session.isCompressed() ? bytesOutDeflate : bytesOutPlain).increment(length);
+        } catch (SessionLimitExceededException e) {
+            closeSlow(session, e);
+        } catch (IOException | RuntimeException e) {
+            // a failed frame must not stop the session's writer from sending the ones queued behind it
+            log.warn("Failed to send event to session {}: {}", session.getId(), e.getMessage());
+        } finally {
+            sample.stop(sendTimer);
+            bufferSizeSummary.record(session.getBufferSize());
+        }
+    }
+
+    private void closeSlow(WebSocketSession session, SessionLimitExceededException cause) {
+        overflowClosedCounter.increment();
+        log.warn("Closing slow WebSocket session {}: {}", session.getId(), cause.getMessage());
+        closeQuietly(session, cause);
+    }
+
+    private void closeQuietly(WebSocketSession session, SessionLimitExceededException cause) {
+        try {
+            session.close(cause.getStatus());
+        } catch (IOException e) {
+            log.debug("Error closing session {}", session.getId(), e);
+        }
+    }
 }
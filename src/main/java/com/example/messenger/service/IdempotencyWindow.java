@@ -0,0 +1,82 @@
+package com.example.messenger.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived, bounded map from idempotency key to the result of the request that first used it.
+ * Entries expire {@code windowMs} after they were stored; when full, the oldest entry is dropped.
+ * A window of zero or less stores nothing.
+ */
+public class IdempotencyWindow<K, V> {
+
+    private record Entry<V>(V value, long storedAtMillis) {}
+
+    private final long windowMs;
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>();
+
+    public IdempotencyWindow(long windowMs, int maxSize) {
+        this(windowMs, maxSize, System::currentTimeMillis);
+    }
+
+    IdempotencyWindow(long windowMs, int maxSize, LongSupplier clock) {
+        this.windowMs = windowMs;
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /** Returns the remembered result, or null if the key is unknown or its entry has expired. */
+    public V get(K key) {
+        if (windowMs <= 0) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.storedAtMillis() >= windowMs) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value();
+        }
+    }
+
+    /** Remembers a result, first dropping expired entries and, if still full, the oldest one. */
+    public void put(K key, V value) {
+        if (windowMs <= 0 || maxSize <= 0) {
+            return;
+        }
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            entries.remove(key);
+            Iterator<Entry<V>> oldestFirst = entries.values().iterator();
+            while (oldestFirst.hasNext()) {
+                Entry<V> oldest = oldestFirst.next();
+                if (now - oldest.storedAtMillis() < windowMs && entries.size() < maxSize) {
+                    break;
+                }
+                oldestFirst.remove();
+            }
+            entries.put(key, new Entry<>(value, now));
+        }
+    }
+
+    /** Forgets a key, e.g. when the result it points to is no longer valid. */
+    public void remove(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
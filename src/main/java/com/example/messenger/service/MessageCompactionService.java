@@ -0,0 +1,76 @@
+package com.example.messenger.service;
+
+import com.example.messenger.config.CompactionConfig;
+import com.example.messenger.repository.MessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Lazily compacts deleted messages: replaces the encrypted body of every tombstoned message with an
+ * empty one, so deleted content does not linger in the table, its indexes or backups.
+ *
+ * <p>Candidates are found through a partial index on deleted, not yet scrubbed rows, so the job never
+ * scans visible messages; each batch is a single short {@code UPDATE} (see {@link CompactionConfig}).
+ */
+@Service
+public class MessageCompactionService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageCompactionService.class);
+
+    private static final byte[] SCRUBBED_BODY = new byte[0];
+
+    private final MessageRepository messageRepository;
+    private final CompactionConfig config;
+    private final Counter scrubbedCounter;
+    private final Timer runTimer;
+
+    public MessageCompactionService(MessageRepository messageRepository, CompactionConfig config,
+                                    MeterRegistry meterRegistry) {
+        this.messageRepository = messageRepository;
+        this.config = config;
+        this.scrubbedCounter = Counter.builder("messenger.messages.compacted")
+                .description("Deleted message bodies scrubbed by the compaction job")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("messenger.messages.compaction.run.duration")
+                .description("Duration of a message compaction run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${compaction.interval-ms:300000}", initialDelayString = "${compaction.initial-delay-ms:180000}")
+    public void runScheduledCompaction() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            compactBatches();
+        } catch (RuntimeException e) {
+            log.error("Message compaction run failed", e);
+        } finally {
+            sample.stop(runTimer);
+        }
+    }
+
+    /** Scrubs up to {@code compaction.max-batches-per-run} batches; returns the number of bodies scrubbed. */
+    public int compactBatches() {
+        int batchSize = config.getBatchSize();
+        int total = 0;
+        for (int i = 0; i < config.getMaxBatchesPerRun(); i++) {
+            int scrubbed = messageRepository.scrubDeletedBodies(SCRUBBED_BODY, batchSize);
+            total += scrubbed;
+            scrubbedCounter.increment(scrubbed);
+            if (scrubbed < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Compaction scrubbed {} deleted message bodies", total);
+        }
+        return total;
+    }
+}
@@ -1,25 +1,34 @@
 package com.example.messenger.service;
 
 
+import com.example.messenger.config.IdempotencyConfig;
 import com.example.messenger.crypto.MessageCrypto;
 import com.example.messenger.domain.*;
 import com.example.messenger.dto.ConversationSummary;
 import com.example.messenger.dto.CreateConversationRequest;
+import com.example.messenger.dto.MembershipEventPayload;
+import com.example.messenger.dto.MessageDeletedEventPayload;
+import com.example.messenger.dto.MessageEventPayload;
 import com.example.messenger.exception.CustomException;
 import com.example.messenger.repository.*;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import org.springframework.http.HttpStatus;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service //"business logic"
 public class MessageService {
@@ -30,8 +39,15 @@ public class MessageService {
     private final ConversationRepository conversations;
     private final ConversationParticipantRepository participantRepository;
     private final EventService eventService;
-    private final ObjectMapper objectMapper;
+    private final MessageIdempotencyClaimRepository messageIdempotencyClaims;
+    private final IdempotencyClaimRepository idempotencyClaims;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyWindow<MessageIdempotencyKey, Message> recentSends;
+    private final IdempotencyWindow<IdempotencyClaim.Id, Long> recentConversations;
     private final Counter messagesSentCounter;
+    private final Counter messagesDeletedCounter;
+    private final Counter windowReplayCounter;
+    private final Counter databaseReplayCounter;
     private final Timer messageSendTimer;
 
     public MessageService(
@@ -41,7 +57,10 @@ public class MessageService {
             ConversationRepository conversations,
             ConversationParticipantRepository participantRepository,
             EventService eventService,
-            ObjectMapper objectMapper,
+            MessageIdempotencyClaimRepository messageIdempotencyClaims,
+            IdempotencyClaimRepository idempotencyClaims,
+            IdempotencyConfig idempotencyConfig,
+            PlatformTransactionManager transactionManager,
             MeterRegistry meterRegistry
     ) {
         this.users = users;
@@ -50,13 +69,28 @@ public class MessageService {
         this.conversations = conversations;
         this.participantRepository = participantRepository;
         this.eventService = eventService;
-        this.objectMapper = objectMapper;
+        this.messageIdempotencyClaims = messageIdempotencyClaims;
+        this.idempotencyClaims = idempotencyClaims;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recentSends = new IdempotencyWindow<>(idempotencyConfig.getWindowMs(), idempotencyConfig.getWindowSize());
+        this.recentConversations = new IdempotencyWindow<>(idempotencyConfig.getWindowMs(), idempotencyConfig.getWindowSize());
         this.messagesSentCounter = Counter.builder("messenger.messages.sent")
                 .description("Total messages sent")
                 .register(meterRegistry);
         this.messageSendTimer = Timer.builder("messenger.messages.send.duration")
                 .description("Message send latency")
                 .register(meterRegistry);
+        this.messagesDeletedCounter = Counter.builder("messenger.messages.deleted")
+                .description("Messages deleted by their sender (tombstoned)")
+                .register(meterRegistry);
+        this.windowReplayCounter = Counter.builder("messenger.messages.idempotent.replays")
+                .description("Keyed sends answered with an earlier message instead of a new one")
+                .tag("source", "window")
+                .register(meterRegistry);
+        this.databaseReplayCounter = Counter.builder("messenger.messages.idempotent.replays")
+                .description("Keyed sends answered with an earlier message instead of a new one")
+                .tag("source", "database")
+                .register(meterRegistry);
     }
 
     public AppUser createUser(String username) {
@@ -84,16 +118,77 @@ public class MessageService {
             return createConversation(ids.get(0), ids.get(1));
         }
         String name = request.getName() != null ? request.getName() : "Group";
-        Conversation group = createGroupConversation(name, ids.get(0));
-        for (int i = 1; i < ids.size(); i++) {
-            addParticipantToConversation(group.getId(), ids.get(i), ParticipantRole.MEMBER);
+        return createGroupConversation(name, ids);
+    }
+
+    /**
+     * Creates a group owned by the first id with the remaining ids as members (duplicates ignored).
+     * All users are loaded with one {@code IN} query and the participants are inserted in one JDBC
+     * batch, so the statement count does not grow with the group size.
+     */
+    public Conversation createGroupConversation(String name, List<Long> participantIds) {
+        Set<Long> ids = new LinkedHashSet<>(participantIds);
+        if (ids.isEmpty()) {
+            throw new CustomException("GROUP conversation requires at least one participant", HttpStatus.BAD_REQUEST);
+        }
+        if (ids.size() > Conversation.MAX_GROUP_MEMBERS) {
+            throw new CustomException("Group conversation allows at most " + Conversation.MAX_GROUP_MEMBERS
+                    + " participants", HttpStatus.BAD_REQUEST);
+        }
+        Map<Long, AppUser> found = new HashMap<>();
+        for (AppUser user : users.findAllById(ids)) {
+            found.put(user.getId(), user);
+        }
+        Conversation conv = new Conversation(ConversationType.GROUP, name);
+        for (Long id : ids) {
+            AppUser user = found.get(id);
+            if (user == null) {
+                throw new CustomException("User not found: " + id, HttpStatus.NOT_FOUND);
+            }
+            conv.addParticipant(user, conv.getParticipants().isEmpty() ? ParticipantRole.OWNER : ParticipantRole.MEMBER);
+        }
+        return conversations.saveAndFlush(conv);
+    }
+
+    /**
+     * Creates a conversation at most once per (requester, idempotency key). A retry within the
+     * {@link IdempotencyConfig} window costs one lookup by id; later retries claim the key, lose, and
+     * return the conversation recorded by the first request. Without a key this is
+     * {@link #createConversation(CreateConversationRequest)}.
+     */
+    public Conversation createConversation(CreateConversationRequest request, Long requesterId, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return createConversation(request);
         }
-        return conversations.findById(group.getId()).orElseThrow(() ->
-                new CustomException("Conversation not found", HttpStatus.NOT_FOUND));
+        IdempotencyClaim.Id claimId = new IdempotencyClaim.Id(IdempotencyClaim.CREATE_CONVERSATION, requesterId, idempotencyKey);
+        Long recent = recentConversations.get(claimId);
+        if (recent != null) {
+            return findConversation(recent);
+        }
+        Conversation conversation = transactionTemplate.execute(status -> {
+            if (idempotencyClaims.claim(claimId.getScope(), requesterId, idempotencyKey, Instant.now()) == 0) {
+                Long existingId = idempotencyClaims.findResultId(claimId).orElseThrow(() -> new CustomException(
+                        "Idempotency key already used: " + idempotencyKey, HttpStatus.CONFLICT));
+                return findConversation(existingId);
+            }
+            Conversation created = createConversation(request);
+            idempotencyClaims.complete(claimId, created.getId());
+            return created;
+        });
+        recentConversations.put(claimId, conversation.getId());
+        return conversation;
+    }
+
+    private Conversation findConversation(Long conversationId) {
+        return conversations.findById(conversationId).orElseThrow(() ->
+                new CustomException("Conversation not found: " + conversationId, HttpStatus.NOT_FOUND));
     }
 
     /** Creates a one-to-one conversation with two participants. */
     public Conversation createConversation(Long userAId, Long userBId) {
+        if (userAId.equals(userBId)) {
+            throw new CustomException("ONE_TO_ONE conversation requires two different users", HttpStatus.BAD_REQUEST);
+        }
         AppUser a = users.findById(userAId).orElseThrow(() ->
                 new CustomException("User not found: " + userAId, HttpStatus.NOT_FOUND));
         AppUser b = users.findById(userBId).orElseThrow(() ->
@@ -114,22 +209,177 @@ public class MessageService {
     }
 
     /**
-     * Adds a participant to a conversation. For group conversations, enforces max {@value Conversation#MAX_GROUP_MEMBERS} members.
+     * Adds a participant to a conversation. For group conversations, enforces max {@value Conversation#MAX_GROUP_MEMBERS} members
+     * under a row lock on the conversation, so concurrent adds cannot overrun the limit.
+     * Idempotent: adding an existing member changes nothing, and a concurrent duplicate add is rejected
+     * by the unique (conversation_id, user_id) constraint and treated the same way.
      * @throws IllegalStateException if the conversation is a group and already has the maximum number of participants
      */
     public Conversation addParticipantToConversation(Long conversationId, Long userId, ParticipantRole role) {
-        Conversation conversation = conversations.findById(conversationId).orElseThrow(() ->
-                new CustomException("Conversation not found: " + conversationId, HttpStatus.NOT_FOUND));
-        AppUser user = users.findById(userId).orElseThrow(() ->
-                new CustomException("User not found: " + userId, HttpStatus.NOT_FOUND));
-        if (conversation.getType() == ConversationType.GROUP) {
-            long count = participantRepository.countByConversationId(conversationId);
-            if (count >= Conversation.MAX_GROUP_MEMBERS) {
-                throw new IllegalStateException(
-                        "Group conversation already has maximum " + Conversation.MAX_GROUP_MEMBERS + " participants");
+        try {
+            return transactionTemplate.execute(status -> {
+                Conversation conversation = lockConversation(conversationId);
+                if (participantRepository.existsByConversation_IdAndUser_Id(conversationId, userId)) {
+                    return conversation;
+                }
+                AppUser user = users.findById(userId).orElseThrow(() ->
+                        new CustomException("User not found: " + userId, HttpStatus.NOT_FOUND));
+                if (conversation.getType() == ConversationType.GROUP) {
+                    long count = participantRepository.countByConversationId(conversationId);
+                    if (count >= Conversation.MAX_GROUP_MEMBERS) {
+                        throw new IllegalStateException(
+                                "Group conversation already has maximum " + Conversation.MAX_GROUP_MEMBERS + " participants");
+                    }
+                }
+                conversation.addParticipant(user, role);
+                return conversations.saveAndFlush(conversation);
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (!participantRepository.existsByConversation_IdAndUser_Id(conversationId, userId)) {
+                throw e;
+            }
+            return findConversation(conversationId);
+        }
+    }
+
+    /**
+     * Adds several members to a group at once. Requires an OWNER or ADMIN requester. Runs under a row
+     * lock on the conversation: current members are read with one query, new users with one
+     * {@code IN} query, and the new participants are inserted in one batch. Existing members are
+     * skipped, so a retried request changes nothing. Members are notified with a single
+     * {@code membership} event after commit (none if nothing changed).
+     */
+    public MembershipEventPayload addParticipants(Long conversationId, Long requesterId, List<Long> userIds) {
+        MembershipChange change = transactionTemplate.execute(status -> {
+            Conversation conversation = lockGroup(conversationId);
+            Map<Long, ParticipantRole> members = members(conversationId);
+            requireManager(members, requesterId);
+
+            Set<Long> toAdd = new LinkedHashSet<>(userIds);
+            toAdd.removeAll(members.keySet());
+            if (toAdd.isEmpty()) {
+                return unchanged(conversation, members.size());
+            }
+            if (members.size() + toAdd.size() > Conversation.MAX_GROUP_MEMBERS) {
+                throw new CustomException("Group conversation allows at most " + Conversation.MAX_GROUP_MEMBERS
+                        + " participants", HttpStatus.CONFLICT);
+            }
+            Map<Long, AppUser> found = new HashMap<>();
+            for (AppUser user : users.findAllById(toAdd)) {
+                found.put(user.getId(), user);
+            }
+            List<ConversationParticipant> added = new ArrayList<>(toAdd.size());
+            for (Long id : toAdd) {
+                AppUser user = found.get(id);
+                if (user == null) {
+                    throw new CustomException("User not found: " + id, HttpStatus.NOT_FOUND);
+                }
+                added.add(new ConversationParticipant(conversation, user, ParticipantRole.MEMBER));
+            }
+            participantRepository.saveAll(added);
+            participantRepository.flush();
+
+            return recordMembershipChange(conversation, new MembershipEventPayload(
+                    List.copyOf(toAdd), List.of(), members.size() + toAdd.size(), conversation.getSenderKeyEpoch()));
+        });
+        deliver(change);
+        return change.payload();
+    }
+
+    /**
+     * Removes several members from a group at once in one {@code DELETE}. Any member may remove
+     * themselves; removing others requires an OWNER or ADMIN, and the owner cannot be removed. Users
+     * that are not members are ignored. A removal starts a new sender-key epoch so later messages are
+     * sealed under chains the removed members never saw announced. Remaining and removed members get a
+     * single {@code membership} event after commit.
+     */
+    public MembershipEventPayload removeParticipants(Long conversationId, Long requesterId, List<Long> userIds) {
+        MembershipChange change = transactionTemplate.execute(status -> {
+            Conversation conversation = lockGroup(conversationId);
+            Map<Long, ParticipantRole> members = members(conversationId);
+            if (!members.containsKey(requesterId)) {
+                throw new CustomException("Forbidden: user is not a participant in this conversation", HttpStatus.FORBIDDEN);
+            }
+
+            Set<Long> toRemove = new LinkedHashSet<>(userIds);
+            toRemove.retainAll(members.keySet());
+            if (toRemove.isEmpty()) {
+                return unchanged(conversation, members.size());
+            }
+            if (!toRemove.equals(Set.of(requesterId))) {
+                requireManager(members, requesterId);
             }
+            if (toRemove.stream().anyMatch(id -> members.get(id) == ParticipantRole.OWNER)) {
+                throw new CustomException("The group owner cannot be removed", HttpStatus.BAD_REQUEST);
+            }
+            conversation.rotateSenderKeys();
+            int epoch = conversation.getSenderKeyEpoch();
+            // flushes the epoch change first
+            participantRepository.deleteByConversationIdAndUserIdIn(conversationId, toRemove);
+
+            return recordMembershipChange(conversation, new MembershipEventPayload(
+                    List.of(), List.copyOf(toRemove), members.size() - toRemove.size(), epoch));
+        });
+        deliver(change);
+        return change.payload();
+    }
+
+    /** Result of a bulk membership change; {@code event} is null when nothing changed. */
+    private record MembershipChange(MembershipEventPayload payload, Event event, long persistedNanos) {}
+
+    private static MembershipChange unchanged(Conversation conversation, int memberCount) {
+        return new MembershipChange(
+                new MembershipEventPayload(List.of(), List.of(), memberCount, conversation.getSenderKeyEpoch()), null, 0);
+    }
+
+    private MembershipChange recordMembershipChange(Conversation conversation, MembershipEventPayload payload) {
+        Event event = eventService.record(conversation.getId(), ConversationType.GROUP, "membership", payload);
+        return new MembershipChange(payload, event, System.nanoTime());
+    }
+
+    private void deliver(MembershipChange change) {
+        if (change.event() != null) {
+            // removed users are no longer participants but still get the event telling them they left
+            eventService.deliver(change.event(), ConversationType.GROUP, change.persistedNanos(), change.payload().removed());
+        }
+    }
+
+    private Conversation lockConversation(Long conversationId) {
+        return conversations.findByIdForUpdate(conversationId).orElseThrow(() ->
+                new CustomException("Conversation not found: " + conversationId, HttpStatus.NOT_FOUND));
+    }
+
+    private Conversation lockGroup(Long conversationId) {
+        Conversation conversation = lockConversation(conversationId);
+        if (conversation.getType() != ConversationType.GROUP) {
+            throw new CustomException("Only group conversations have changeable membership", HttpStatus.BAD_REQUEST);
+        }
+        return conversation;
+    }
+
+    private Map<Long, ParticipantRole> members(Long conversationId) {
+        Map<Long, ParticipantRole> members = new HashMap<>();
+        for (ConversationParticipantRepository.MemberRow row : participantRepository.findMembersByConversationId(conversationId)) {
+            members.put(row.getUserId(), row.getRole());
+        }
+        return members;
+    }
+
+    private static void requireManager(Map<Long, ParticipantRole> members, Long requesterId) {
+        ParticipantRole role = members.get(requesterId);
+        if (role != ParticipantRole.OWNER && role != ParticipantRole.ADMIN) {
+            throw new CustomException("Forbidden: only the group owner or an admin can change membership", HttpStatus.FORBIDDEN);
         }
-        conversation.addParticipant(user, role);
+    }
+
+    /**
+     * Starts a new sender-key epoch for the conversation; each sender's next message opens a new chain,
+     * announced in a group with a {@code sender_key} event.
+     */
+    public Conversation rotateSenderKeys(Long conversationId) {
+        Conversation conversation = conversations.findById(conversationId).orElseThrow(() ->
+                new CustomException("Conversation not found: " + conversationId, HttpStatus.NOT_FOUND));
+        conversation.rotateSenderKeys();
         return conversations.save(conversation);
     }
 
@@ -140,84 +390,142 @@ public class MessageService {
     /**
      * Sends a message, optionally with an idempotency key. If a non-blank key is provided and a message
      * with that key already exists for the conversation, returns the existing message without creating a duplicate.
+     *
+     * <p>A retry by the same sender within the {@link IdempotencyConfig} window is answered from memory
+     * without any query. Otherwise the key is claimed with an insert before the message is written
+     * (see {@link MessageIdempotencyClaimRepository#claim}); a losing claimant returns the winner's
+     * message, so concurrent retries never insert twice. A key already used by another sender in the
+     * conversation is rejected with 409 Conflict. The message event is delivered after commit.
      */
     public Message sendMessage(Long conversationId, Long senderId, String body, String idempotencyKey) {
         Timer.Sample sample = Timer.start();
         try {
-            Conversation conversation = conversations.findById(conversationId).orElseThrow(() ->
-                    new CustomException("Conversation not found: " + conversationId, HttpStatus.NOT_FOUND));
-            AppUser sender = users.findById(senderId).orElseThrow(() ->
-                    new CustomException("User not found: " + senderId, HttpStatus.NOT_FOUND));
-            ensureParticipant(conversationId, senderId);
-
-            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-                var existing = messages.findByConversationIdAndIdempotencyKey(conversationId, idempotencyKey);
-                if (existing.isPresent()) {
-                    return existing.get();
+            MessageIdempotencyKey dedupKey = idempotencyKey != null && !idempotencyKey.isBlank()
+                    ? new MessageIdempotencyKey(conversationId, idempotencyKey)
+                    : null;
+            if (dedupKey != null) {
+                Message recent = recentSends.get(dedupKey);
+                if (recent != null && recent.getSender().getId().equals(senderId)) {
+                    windowReplayCounter.increment();
+                    return recent;
                 }
             }
 
-            String encrypted = crypto.encrypt(conversationId, body);
-            Message message = idempotencyKey != null && !idempotencyKey.isBlank()
-                    ? new Message(conversation, sender, encrypted, idempotencyKey)
-                    : new Message(conversation, sender, encrypted);
-            message = messages.save(message);
-            messagesSentCounter.increment();
-
-            MessageView view = new MessageView(
-                    message.getId(),
-                    message.getSender().getId(),
-                    message.getSender().getUsername(),
-                    crypto.decrypt(conversationId, message.getBody()),
-                    message.getCreatedAt()
-            );
-            try {
-                // Serialize event payload with a string timestamp to avoid runtime mapper/module coupling.
-                String payload = objectMapper.writeValueAsString(Map.of(
-                        "id", view.id(),
-                        "senderId", view.senderId(),
-                        "senderUsername", view.senderUsername(),
-                        "body", view.body(),
-                        "createdAt", view.createdAt().toString()
-                ));
-                eventService.publish(conversation.getId(), "message", payload);
-            } catch (JsonProcessingException e) {
-                // Log but do not fail the request; message is already saved
-                org.slf4j.LoggerFactory.getLogger(MessageService.class).warn("Failed to publish message event: {}", e.getMessage());
+            SendResult result = transactionTemplate.execute(status -> insertMessage(conversationId, senderId, body, dedupKey));
+            if (result.event() != null) {
+                eventService.deliver(result.event(), result.message().getConversation().getType(), result.persistedNanos());
             }
-
-            return message;
+            if (dedupKey != null) {
+                recentSends.put(dedupKey, result.message());
+            }
+            return result.message();
         } finally {
             sample.stop(messageSendTimer);
         }
     }
 
-    /** Converts a persisted message to a view with decrypted body (for API response). */
+    /** Outcome of the transactional half of a send; {@code event} is null when an earlier message was returned. */
+    private record SendResult(Message message, Event event, long persistedNanos) {}
+
+    private SendResult insertMessage(Long conversationId, Long senderId, String body, MessageIdempotencyKey dedupKey) {
+        Conversation conversation = conversations.findById(conversationId).orElseThrow(() ->
+                new CustomException("Conversation not found: " + conversationId, HttpStatus.NOT_FOUND));
+        AppUser sender = users.findById(senderId).orElseThrow(() ->
+                new CustomException("User not found: " + senderId, HttpStatus.NOT_FOUND));
+        ensureParticipant(conversationId, senderId);
+
+        if (dedupKey != null && messageIdempotencyClaims.claim(conversationId, dedupKey.key(), Instant.now()) == 0) {
+            Message existing = messages.findFirstByConversationIdAndIdempotencyKeyOrderByIdDesc(conversationId, dedupKey.key())
+                    .orElseThrow(() -> new CustomException(
+                            "Idempotency key already used: " + dedupKey.key(), HttpStatus.CONFLICT));
+            if (!existing.getSender().getId().equals(senderId)) {
+                // a key only deduplicates retries of the same sender's message
+                throw new CustomException("Idempotency key already used by another sender: " + dedupKey.key(),
+                        HttpStatus.CONFLICT);
+            }
+            databaseReplayCounter.increment();
+            return new SendResult(existing, null, 0);
+        }
+
+        byte[] encrypted = crypto.encryptBytes(conversationId, senderId, conversation.getSenderKeyEpoch(), body);
+        Message message = dedupKey != null
+                ? new Message(conversation, sender, encrypted, dedupKey.key())
+                : new Message(conversation, sender, encrypted);
+        message = messages.save(message);
+        messagesSentCounter.increment();
+
+        Event event = eventService.record(conversation.getId(), conversation.getType(), "message", new MessageEventPayload(
+                message.getId(),
+                sender.getId(),
+                sender.getUsername(),
+                body, // just encrypted; no need to decrypt the envelope again
+                message.getCreatedAt().toString()
+        ), message.getId());
+        return new SendResult(message, event, System.nanoTime());
+    }
+
+    /** Converts a persisted message to a view with decrypted body (for API response); deleted messages have a null body. */
     public MessageView toMessageView(Message message) {
         long cid = message.getConversation().getId();
         return new MessageView(
                 message.getId(),
                 message.getSender().getId(),
                 message.getSender().getUsername(),
-                crypto.decrypt(cid, message.getBody()),
+                message.isDeleted() ? null : crypto.decryptBytes(cid, message.getBody()),
                 message.getCreatedAt()
         );
     }
 
+    /**
+     * Deletes a message on behalf of its sender by writing a tombstone ({@link Message#markDeleted}); the
+     * row is kept so cursors and event resume stay valid, reads skip it, and its body is scrubbed later
+     * by {@link MessageCompactionService}. The stored {@code message} event is rewritten without the body
+     * in the same transaction. Participants get a {@code message_deleted} event after commit.
+     * Deleting an already deleted message changes nothing.
+     */
+    public void deleteMessage(Long conversationId, Long messageId, Long requesterId) {
+        DeleteResult result = transactionTemplate.execute(status -> {
+            Message message = messages.findById(messageId)
+                    .filter(m -> m.getConversation().getId().equals(conversationId))
+                    .orElseThrow(() -> new CustomException("Message not found: " + messageId, HttpStatus.NOT_FOUND));
+            if (!message.getSender().getId().equals(requesterId)) {
+                throw new CustomException("Forbidden: only the sender can delete a message", HttpStatus.FORBIDDEN);
+            }
+            if (message.isDeleted()) {
+                return new DeleteResult(message, null, 0);
+            }
+            message.markDeleted(Instant.now());
+            messages.save(message);
+            messagesDeletedCounter.increment();
+            Conversation conversation = message.getConversation();
+            // the message event holds the plaintext body; resuming clients must not get it back
+            eventService.redactMessage(conversationId, message.getId(), new MessageEventPayload(
+                    message.getId(),
+                    message.getSender().getId(),
+                    message.getSender().getUsername(),
+                    null,
+                    message.getCreatedAt().toString()
+            ));
+            Event event = eventService.record(conversationId, conversation.getType(), "message_deleted",
+                    new MessageDeletedEventPayload(message.getId(), message.getDeletedAt().toString()));
+            return new DeleteResult(message, event, System.nanoTime());
+        });
+        if (result.event() != null) {
+            eventService.deliver(result.event(), result.message().getConversation().getType(), result.persistedNanos());
+        }
+        if (result.message().getIdempotencyKey() != null) {
+            recentSends.remove(new MessageIdempotencyKey(conversationId, result.message().getIdempotencyKey()));
+        }
+    }
+
+    /** Outcome of the transactional half of a delete; {@code event} is null when the message was already deleted. */
+    private record DeleteResult(Message message, Event event, long persistedNanos) {}
+
     public List<MessageView> listMessages(Long conversationId) {
         if (!conversations.existsById(conversationId)) {
             throw new CustomException("Conversation not found: " + conversationId, HttpStatus.NOT_FOUND);
         }
-        return messages.findByConversationIdOrderByCreatedAtAsc(conversationId)
-                .stream()
-                .map(m -> new MessageView(
-                        m.getId(),
-                        m.getSender().getId(),
-                        m.getSender().getUsername(),
-                        crypto.decrypt(conversationId, m.getBody()),
-                        m.getCreatedAt()
-                ))
-                .toList();
+        return toViews(conversationId, messages.findByConversationIdAndDeletedAtIsNullOrderByCreatedAtAsc(conversationId));
     }
 
     /**
@@ -231,21 +539,31 @@ public class MessageService {
             throw new CustomException("Conversation not found: " + conversationId, HttpStatus.NOT_FOUND);
         }
         List<Message> batch = afterId == null
-                ? messages.findByConversationIdOrderByIdAsc(conversationId, PageRequest.of(0, limit))
-                : messages.findByConversationIdAndIdGreaterThanOrderByIdAsc(conversationId, afterId, PageRequest.of(0, limit));
-        List<MessageView> views = batch.stream()
-                .map(m -> new MessageView(
-                        m.getId(),
-                        m.getSender().getId(),
-                        m.getSender().getUsername(),
-                        crypto.decrypt(conversationId, m.getBody()),
-                        m.getCreatedAt()
-                ))
-                .toList();
+                ? messages.findByConversationIdAndDeletedAtIsNullOrderByIdAsc(conversationId, PageRequest.of(0, limit))
+                : messages.findByConversationIdAndIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(
+                        conversationId, afterId, PageRequest.of(0, limit));
+        List<MessageView> views = toViews(conversationId, batch);
         Long nextCursor = batch.size() < limit ? null : batch.get(batch.size() - 1).getId();
         return new MessageListPage(views, nextCursor);
     }
 
+    /** Decrypts the whole batch in one {@link MessageCrypto#decryptAll} call (key resolved once, large pages in parallel). */
+    private List<MessageView> toViews(Long conversationId, List<Message> batch) {
+        List<String> bodies = crypto.decryptAll(conversationId, batch.stream().map(Message::getBody).toList());
+        List<MessageView> views = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Message m = batch.get(i);
+            views.add(new MessageView(
+                    m.getId(),
+                    m.getSender().getId(),
+                    m.getSender().getUsername(),
+                    bodies.get(i),
+                    m.getCreatedAt()
+            ));
+        }
+        return views;
+    }
+
     /**
      * Cursor-paginated message list with participant authorization check.
      */
@@ -0,0 +1,232 @@
+package com.example.messenger.service;
+
+import com.example.messenger.config.PartitionConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the monthly range partitions of {@code message} and {@code event} (see migration V4).
+ *
+ * <p>Pre-creates partitions for the current month and {@code partitioning.months-ahead} months
+ * so inserts never fall into the DEFAULT partition, and lets retention drop whole months with a
+ * single {@code DROP TABLE} instead of deleting row by row.
+ *
+ * <p>PostgreSQL refuses to create a range partition while the DEFAULT partition holds rows in that
+ * range. If maintenance fell behind and rows landed there, the DEFAULT partition is detached, the
+ * range partition created, the rows moved across and the DEFAULT partition re-attached, all in one
+ * transaction ({@link #createStatements}).
+ *
+ * <p>All operations are no-ops unless the database is PostgreSQL and the table is actually
+ * partitioned (tests run on H2 with a schema generated from the entities).
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    /** Tables managed here; identifiers are interpolated into DDL so only these are accepted. */
+    static final Set<String> PARTITIONED_TABLES = Set.of("message", "event");
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionConfig config;
+    private final Counter partitionsCreatedCounter;
+    private final Counter partitionsDroppedCounter;
+
+    /** Table name -> whether it is a partitioned table; resolved lazily once per table. */
+    private final Map<String, Boolean> partitionedByTable = new ConcurrentHashMap<>();
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                       PartitionConfig config, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = config;
+        this.partitionsCreatedCounter = Counter.builder("messenger.partitions.created")
+                .description("Monthly partitions created by partition maintenance")
+                .register(meterRegistry);
+        this.partitionsDroppedCounter = Counter.builder("messenger.partitions.dropped")
+                .description("Monthly partitions dropped by retention")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${partitioning.interval-ms:86400000}", initialDelayString = "${partitioning.initial-delay-ms:0}")
+    public void runScheduledMaintenance() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        for (String table : PARTITIONED_TABLES) {
+            try {
+                ensurePartitions(table, YearMonth.now(ZoneOffset.UTC));
+            } catch (DataAccessException e) {
+                log.error("Partition maintenance failed for {}", table, e);
+            }
+        }
+    }
+
+    /** Creates any missing partitions from {@code from} through {@code months-ahead} months later. */
+    public int ensurePartitions(String table, YearMonth from) {
+        if (!isPartitioned(table)) {
+            return 0;
+        }
+        int created = 0;
+        for (int i = 0; i <= config.getMonthsAhead(); i++) {
+            YearMonth month = from.plusMonths(i);
+            String name = partitionName(table, month);
+            if (partitionExists(name)) {
+                continue;
+            }
+            LocalDate start = month.atDay(1);
+            LocalDate end = month.plusMonths(1).atDay(1);
+            boolean moveFromDefault = defaultHasRows(table, start, end);
+            transactionTemplate.executeWithoutResult(status ->
+                    createStatements(table, month, moveFromDefault).forEach(jdbcTemplate::execute));
+            partitionsCreatedCounter.increment();
+            created++;
+            if (moveFromDefault) {
+                log.warn("Created partition {} for {} and moved its rows out of {}", name, month, defaultPartitionName(table));
+            } else {
+                log.info("Created partition {} for {}", name, month);
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Drops every monthly partition of {@code table} whose upper bound is at or before {@code cutoff}.
+     * Rows newer than the last whole month are left to row-level retention.
+     *
+     * @return number of partitions dropped
+     */
+    public int dropPartitionsBefore(String table, Instant cutoff) {
+        if (!isPartitioned(table)) {
+            return 0;
+        }
+        YearMonth cutoffMonth = YearMonth.from(cutoff.atZone(ZoneOffset.UTC));
+        int dropped = 0;
+        for (String partition : listPartitions(table)) {
+            YearMonth month = parsePartitionMonth(table, partition);
+            // A partition covers [month, month + 1); it is fully expired when month + 1 <= cutoff's month start
+            if (month != null && !month.plusMonths(1).isAfter(cutoffMonth)) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                partitionsDroppedCounter.increment();
+                dropped++;
+                log.info("Dropped expired partition {}", partition);
+            }
+        }
+        return dropped;
+    }
+
+    /** True when running on PostgreSQL and {@code table} is a declaratively partitioned table. */
+    public boolean isPartitioned(String table) {
+        if (!PARTITIONED_TABLES.contains(table)) {
+            throw new IllegalArgumentException("Not a partitioned table: " + table);
+        }
+        return partitionedByTable.computeIfAbsent(table, this::lookupPartitioned);
+    }
+
+    private boolean lookupPartitioned(String table) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (product == null || !product.toLowerCase().contains("postgres")) {
+            return false;
+        }
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid "
+                        + "WHERE c.relname = ? AND pg_table_is_visible(c.oid))",
+                Boolean.class, table);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    /**
+     * DDL creating the partition of {@code table} for {@code month}. With {@code moveFromDefault} the
+     * DEFAULT partition is detached around the create and its rows in that month are moved into the
+     * new partition; run the statements in one transaction.
+     */
+    static List<String> createStatements(String table, YearMonth month, boolean moveFromDefault) {
+        String name = partitionName(table, month);
+        String start = "'" + month.atDay(1) + "'";
+        String end = "'" + month.plusMonths(1).atDay(1) + "'";
+        String create = "CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + table
+                + " FOR VALUES FROM (" + start + ") TO (" + end + ")";
+        if (!moveFromDefault) {
+            return List.of(create);
+        }
+        String defaultPartition = defaultPartitionName(table);
+        String inRange = " WHERE created_at >= " + start + " AND created_at < " + end;
+        return List.of(
+                "ALTER TABLE " + table + " DETACH PARTITION " + defaultPartition,
+                create,
+                "INSERT INTO " + name + " SELECT * FROM " + defaultPartition + inRange,
+                "DELETE FROM " + defaultPartition + inRange,
+                "ALTER TABLE " + table + " ATTACH PARTITION " + defaultPartition + " DEFAULT");
+    }
+
+    private boolean defaultHasRows(String table, LocalDate start, LocalDate end) {
+        String defaultPartition = defaultPartitionName(table);
+        if (!partitionExists(defaultPartition)) {
+            return false;
+        }
+        Boolean hasRows = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + defaultPartition + " WHERE created_at >= ? AND created_at < ?)",
+                Boolean.class, start, end);
+        return Boolean.TRUE.equals(hasRows);
+    }
+
+    private boolean partitionExists(String name) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private List<String> listPartitions(String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ? AND pg_table_is_visible(p.oid) ORDER BY c.relname",
+                String.class, table);
+    }
+
+    /** Partition naming used by migration V4: {@code <table>_pYYYY_MM}. */
+    static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX_FORMAT);
+    }
+
+    /** DEFAULT partition created by migration V4: {@code <table>_default}. */
+    static String defaultPartitionName(String table) {
+        return table + "_default";
+    }
+
+    /** Parses the month from a partition name, or returns null for non-monthly partitions (e.g. DEFAULT). */
+    static YearMonth parsePartitionMonth(String table, String partitionName) {
+        String prefix = table + "_p";
+        if (partitionName == null || !partitionName.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(prefix.length()), SUFFIX_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.messenger.service;
+
+import com.example.messenger.config.ReencryptionConfig;
+import com.example.messenger.crypto.MessageCrypto;
+import com.example.messenger.domain.ReencryptionCheckpoint;
+import com.example.messenger.repository.MessageRepository;
+import com.example.messenger.repository.ReencryptionCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves stored message bodies onto the active encryption key after a rotation (see
+ * {@code AesGcmMessageCrypto} and {@link ReencryptionConfig}).
+ *
+ * <p>Messages are scanned in id order in small batches. Each batch, together with its checkpoint,
+ * is one short transaction; bodies are replaced with a compare-and-set update, so a row changed by
+ * someone else in the meantime is left alone rather than overwritten. Between batches the job sleeps
+ * as needed to stay under {@code crypto.reencryption.max-rows-per-second}, keeping its load on the
+ * database predictable next to live traffic. Several nodes may run the job at once: they repeat some
+ * reads but never write conflicting bodies.
+ *
+ * <p>A body that cannot be decrypted (corrupt, or written under a key no longer in the ring) is
+ * logged, counted in {@code messenger.crypto.reencryption.failed} and in the checkpoint's
+ * {@code failed} column, and skipped, so one bad row does not stall the scan. Such a body still needs
+ * its old key, so a scan that skipped any is not marked complete: {@code completed_at} is only set
+ * when every body is on the new key, and is the signal that old keys can leave {@code crypto.keys}.
+ * After fixing the cause (e.g. putting a missing key back in the ring), delete the checkpoint row to
+ * rescan.
+ */
+@Service
+public class ReencryptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReencryptionService.class);
+
+    private final MessageRepository messageRepository;
+    private final ReencryptionCheckpointRepository checkpointRepository;
+    private final MessageCrypto crypto;
+    private final ReencryptionConfig config;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter rewrittenCounter;
+    private final Counter failedCounter;
+    private final Timer runTimer;
+
+    public ReencryptionService(
+            MessageRepository messageRepository,
+            ReencryptionCheckpointRepository checkpointRepository,
+            MessageCrypto crypto,
+            ReencryptionConfig config,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.messageRepository = messageRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.crypto = crypto;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rewrittenCounter = Counter.builder("messenger.crypto.reencrypted")
+                .description("Message bodies rewritten under the active encryption key")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("messenger.crypto.reencryption.failed")
+                .description("Message bodies skipped by re-encryption because they could not be decrypted")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("messenger.crypto.reencryption.run.duration")
+                .description("Duration of a re-encryption run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${crypto.reencryption.interval-ms:60000}",
+            initialDelayString = "${crypto.reencryption.initial-delay-ms:120000}")
+    public void runScheduledReencryption() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            reencryptBatches();
+        } catch (RuntimeException e) {
+            log.error("Re-encryption run failed", e);
+        } finally {
+            sample.stop(runTimer);
+        }
+    }
+
+    /**
+     * Processes up to {@code max-batches-per-run} batches towards the active key id, resuming from its
+     * checkpoint. Returns the number of bodies rewritten; 0 once the table is fully migrated.
+     */
+    public int reencryptBatches() {
+        int keyId = crypto.currentKeyId();
+        ReencryptionCheckpoint checkpoint = checkpointRepository.findById(keyId)
+                .orElseGet(() -> new ReencryptionCheckpoint(keyId));
+        if (checkpoint.isCompleted()) {
+            return 0;
+        }
+        int total = 0;
+        for (int i = 0; i < config.getMaxBatchesPerRun(); i++) {
+            long started = System.nanoTime();
+            List<MessageRepository.BodyRow> rows = messageRepository.findBodiesAfter(
+                    checkpoint.getLastMessageId(), PageRequest.of(0, config.getBatchSize()));
+            if (rows.isEmpty()) {
+                if (checkpoint.getFailed() == 0) {
+                    checkpoint.complete(Instant.now());
+                    checkpointRepository.save(checkpoint);
+                    log.info("Re-encryption to key {} complete: {} bodies rewritten", keyId, checkpoint.getRewritten());
+                } else if (i > 0) {
+                    // reached the end in this run; later runs only pick up new rows and stay quiet
+                    log.warn("Re-encryption to key {} incomplete: {} bodies rewritten, {} could not be decrypted "
+                            + "and still need their old key", keyId, checkpoint.getRewritten(), checkpoint.getFailed());
+                }
+                break;
+            }
+            Integer rewritten = transactionTemplate.execute(status -> {
+                BatchResult batch = rewrite(rows);
+                checkpoint.advance(rows.get(rows.size() - 1).getId(), batch.rewritten(), batch.failed());
+                checkpointRepository.save(checkpoint);
+                return batch.rewritten();
+            });
+            total += rewritten;
+            rewrittenCounter.increment(rewritten);
+            throttle(rows.size(), started);
+        }
+        return total;
+    }
+
+    private record BatchResult(int rewritten, int failed) {}
+
+    private BatchResult rewrite(List<MessageRepository.BodyRow> rows) {
+        int rewritten = 0;
+        int failed = 0;
+        for (MessageRepository.BodyRow row : rows) {
+            byte[] body = row.getBody();
+            if (!crypto.needsReencryption(body)) {
+                continue;
+            }
+            byte[] reencrypted;
+            try {
+                reencrypted = crypto.reencrypt(row.getConversationId(), body);
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                failed++;
+                log.warn("Skipping message {}: body could not be re-encrypted: {}", row.getId(), e.getMessage());
+                continue;
+            }
+            rewritten += messageRepository.replaceBody(row.getId(), body, reencrypted);
+        }
+        return new BatchResult(rewritten, failed);
+    }
+
+    /** Sleeps off whatever is left of the time budget for {@code rows} at the configured rate. */
+    private void throttle(int rows, long startedNanos) {
+        int maxRowsPerSecond = config.getMaxRowsPerSecond();
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long budgetNanos = TimeUnit.SECONDS.toNanos(rows) / maxRowsPerSecond;
+        long remainingNanos = budgetNanos - (System.nanoTime() - startedNanos);
+        if (remainingNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remainingNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.messenger.service;
+
+import com.example.messenger.config.RetentionConfig;
+import com.example.messenger.repository.EventRepository;
+import com.example.messenger.repository.IdempotencyClaimRepository;
+import com.example.messenger.repository.MessageIdempotencyClaimRepository;
+import com.example.messenger.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Periodically removes rows that are no longer needed: events older than the configured TTL and
+ * refresh tokens that are expired (past a grace period) or revoked, and idempotency claims older
+ * than their TTL.
+ *
+ * <p>On a partitioned {@code event} table whole expired months are dropped via
+ * {@link PartitionMaintenanceService}. Remaining deletes run in bounded batches keyed on indexed
+ * columns ({@code event.created_at}, {@code refresh_token.expires_at}); each batch is its own short
+ * transaction so the job never holds locks that would block message sends or token refreshes.
+ */
+@Service
+public class RetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionService.class);
+
+    private final EventRepository eventRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MessageIdempotencyClaimRepository messageIdempotencyClaimRepository;
+    private final IdempotencyClaimRepository idempotencyClaimRepository;
+    private final PartitionMaintenanceService partitionMaintenanceService;
+    private final RetentionConfig config;
+    private final Counter eventsPurgedCounter;
+    private final Counter refreshTokensPurgedCounter;
+    private final Counter messageIdempotencyClaimsPurgedCounter;
+    private final Counter idempotencyClaimsPurgedCounter;
+    private final Timer runTimer;
+
+    public RetentionService(
+            EventRepository eventRepository,
+            RefreshTokenRepository refreshTokenRepository,
+            MessageIdempotencyClaimRepository messageIdempotencyClaimRepository,
+            IdempotencyClaimRepository idempotencyClaimRepository,
+            PartitionMaintenanceService partitionMaintenanceService,
+            RetentionConfig config,
+            MeterRegistry meterRegistry
+    ) {
+        this.eventRepository = eventRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.messageIdempotencyClaimRepository = messageIdempotencyClaimRepository;
+        this.idempotencyClaimRepository = idempotencyClaimRepository;
+        this.partitionMaintenanceService = partitionMaintenanceService;
+        this.config = config;
+        this.eventsPurgedCounter = Counter.builder("messenger.retention.rows.purged")
+                .description("Rows removed by the retention job")
+                .tag("table", "event")
+                .register(meterRegistry);
+        this.refreshTokensPurgedCounter = Counter.builder("messenger.retention.rows.purged")
+                .description("Rows removed by the retention job")
+                .tag("table", "refresh_token")
+                .register(meterRegistry);
+        this.messageIdempotencyClaimsPurgedCounter = Counter.builder("messenger.retention.rows.purged")
+                .description("Rows removed by the retention job")
+                .tag("table", "message_idempotency_claim")
+                .register(meterRegistry);
+        this.idempotencyClaimsPurgedCounter = Counter.builder("messenger.retention.rows.purged")
+                .description("Rows removed by the retention job")
+                .tag("table", "idempotency_claim")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("messenger.retention.run.duration")
+                .description("Duration of a retention purge run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${retention.interval-ms:3600000}", initialDelayString = "${retention.initial-delay-ms:60000}")
+    public void runScheduledPurge() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        purgeAll(Instant.now());
+    }
+
+    /** Runs every purge once, recording the total duration. */
+    public void purgeAll(Instant now) {
+        Timer.Sample sample = Timer.start();
+        try {
+            purgeEvents(now);
+            purgeRefreshTokens(now);
+            purgeIdempotencyClaims(now);
+        } catch (RuntimeException e) {
+            log.error("Retention run failed", e);
+        } finally {
+            sample.stop(runTimer);
+        }
+    }
+
+    /**
+     * Deletes events created more than {@code retention.event-ttl-ms} before {@code now}. Fully expired
+     * monthly partitions are dropped outright; the returned count covers row-level deletes only.
+     */
+    public int purgeEvents(Instant now) {
+        Instant cutoff = now.minusMillis(config.getEventTtlMs());
+        if (config.isDropEventPartitions()) {
+            partitionMaintenanceService.dropPartitionsBefore("event", cutoff);
+        }
+        return deleteInBatches("event", eventsPurgedCounter,
+                limit -> eventRepository.deleteBatchCreatedBefore(cutoff, limit));
+    }
+
+    /** Deletes refresh tokens expired for longer than the grace period, and revoked tokens if enabled. */
+    public int purgeRefreshTokens(Instant now) {
+        Instant cutoff = now.minusMillis(config.getRefreshTokenGraceMs());
+        int purged = deleteInBatches("refresh_token", refreshTokensPurgedCounter,
+                limit -> refreshTokenRepository.deleteBatchExpiredBefore(cutoff, limit));
+        if (config.isPurgeRevokedRefreshTokens()) {
+            purged += deleteInBatches("refresh_token", refreshTokensPurgedCounter,
+                    refreshTokenRepository::deleteBatchRevoked);
+        }
+        return purged;
+    }
+
+    /**
+     * Deletes idempotency claims older than {@code retention.idempotency-claim-ttl-ms}; a key is only
+     * deduplicated by the database while its claim exists. Messages keep their key, so after the purge a
+     * reused key can label several messages; the replay lookup then resolves to the newest one.
+     */
+    public int purgeIdempotencyClaims(Instant now) {
+        Instant cutoff = now.minusMillis(config.getIdempotencyClaimTtlMs());
+        return deleteInBatches("message_idempotency_claim", messageIdempotencyClaimsPurgedCounter,
+                limit -> messageIdempotencyClaimRepository.deleteBatchCreatedBefore(cutoff, limit))
+                + deleteInBatches("idempotency_claim", idempotencyClaimsPurgedCounter,
+                limit -> idempotencyClaimRepository.deleteBatchCreatedBefore(cutoff, limit));
+    }
+
+    private int deleteInBatches(String table, Counter counter, IntUnaryOperator deleteBatch) {
+        int batchSize = config.getBatchSize();
+        int total = 0;
+        for (int i = 0; i < config.getMaxBatchesPerRun(); i++) {
+            int deleted = deleteBatch.applyAsInt(batchSize);
+            total += deleted;
+            counter.increment(deleted);
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Retention purged {} rows from {}", total, table);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.messenger.service;
+
+import com.example.messenger.crypto.AesGcmMessageCrypto;
+import com.example.messenger.crypto.SenderKeyChains;
+import com.example.messenger.crypto.SenderKeyDistributionEvent;
+import com.example.messenger.domain.ConversationType;
+import com.example.messenger.domain.Event;
+import com.example.messenger.dto.SenderKeyEventPayload;
+import com.example.messenger.repository.ConversationRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Announces new sender-key chains in group conversations as {@code sender_key} events, so members
+ * know which (sender, epoch) the following messages belong to. One-to-one conversations are not
+ * announced: the only other member learns the sender from the message itself.
+ *
+ * <p>Chains start while a message is being sent, so the announcement follows the send's transaction:
+ * it is recorded in that transaction and delivered after commit, ahead of the message event. If the
+ * send rolls back, the announcement goes with it and the chain is announced again by its next send.
+ * Chains are announced at least once per node; clients treat repeats of the same (sender, epoch) as
+ * no-ops.
+ */
+@Component
+public class SenderKeyDistributionListener {
+
+    private final EventService eventService;
+    private final ConversationRepository conversations;
+    private final AesGcmMessageCrypto crypto;
+
+    public SenderKeyDistributionListener(EventService eventService, ConversationRepository conversations,
+                                         AesGcmMessageCrypto crypto) {
+        this.eventService = eventService;
+        this.conversations = conversations;
+        this.crypto = crypto;
+    }
+
+    @EventListener
+    public void onSenderKeyDistribution(SenderKeyDistributionEvent event) {
+        // the sending transaction has the conversation loaded already, so this is not a query
+        boolean group = conversations.findById(event.conversationId())
+                .map(conversation -> conversation.getType() == ConversationType.GROUP)
+                .orElse(false);
+        if (!group) {
+            return;
+        }
+        SenderKeyEventPayload payload = new SenderKeyEventPayload(event.senderId(), event.epoch(), event.keyId());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventService.publish(event.conversationId(), "sender_key", payload);
+            return;
+        }
+        Event recorded = eventService.record(event.conversationId(), ConversationType.GROUP, "sender_key", payload);
+        long persistedNanos = System.nanoTime();
+        SenderKeyChains.ChainId chainId = new SenderKeyChains.ChainId(
+                event.keyId(), event.conversationId(), event.senderId(), event.epoch());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (recorded != null) {
+                    eventService.deliver(recorded, ConversationType.GROUP, persistedNanos);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    crypto.senderKeys().retractAnnouncement(chainId);
+                }
+            }
+        });
+    }
+}
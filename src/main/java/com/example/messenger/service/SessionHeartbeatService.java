@@ -0,0 +1,95 @@
+package com.example.messenger.service;
+
+import com.example.messenger.config.WebSocketSessionConfig;
+import com.example.messenger.websocket.RegisteredSession;
+import com.example.messenger.websocket.SessionRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Server-side WebSocket heartbeat and dead-session reaper.
+ *
+ * <p>Half-open TCP connections never trigger {@code afterConnectionClosed}, so without this job they
+ * would stay in the {@link SessionRegistry} and keep receiving fan-out writes. Each run pings every
+ * live session (clients answer with a pong, which {@code MessageWebSocketHandler} records) and
+ * evicts sessions that are closed or have been silent for longer than the idle timeout.
+ */
+@Service
+public class SessionHeartbeatService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionHeartbeatService.class);
+
+    private static final PingMessage PING = new PingMessage();
+
+    private final SessionRegistry sessionRegistry;
+    private final WebSocketSessionConfig config;
+    private final Counter reapedCounter;
+
+    public SessionHeartbeatService(SessionRegistry sessionRegistry, WebSocketSessionConfig config, MeterRegistry meterRegistry) {
+        this.sessionRegistry = sessionRegistry;
+        this.config = config;
+        this.reapedCounter = Counter.builder("messenger.websocket.sessions.reaped")
+                .description("WebSocket sessions evicted because they were closed or stopped answering heartbeats")
+                .tag("node", config.getNodeId())
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${websocket.session.heartbeat-interval-ms:25000}",
+            initialDelayString = "${websocket.session.heartbeat-interval-ms:25000}")
+    public void runScheduledHeartbeat() {
+        if (!config.isHeartbeatEnabled()) {
+            return;
+        }
+        heartbeat(System.currentTimeMillis());
+    }
+
+    /** Reaps dead sessions and pings the rest. Returns the number of sessions reaped. */
+    public int heartbeat(long nowMillis) {
+        List<RegisteredSession> dead = new ArrayList<>();
+        sessionRegistry.forEach(session -> {
+            if (!session.isOpen() || nowMillis - session.getLastSeenMillis() > config.getIdleTimeoutMs()) {
+                dead.add(session);
+            } else {
+                ping(session);
+            }
+        });
+        int reaped = 0;
+        for (RegisteredSession session : dead) {
+            if (sessionRegistry.unregister(session.getUserId(), session.getId())) {
+                reaped++;
+                reapedCounter.increment();
+                closeQuietly(session);
+            }
+        }
+        if (reaped > 0) {
+            log.info("Reaped {} dead WebSocket sessions", reaped);
+        }
+        return reaped;
+    }
+
+    private void ping(RegisteredSession session) {
+        try {
+            session.sendMessage(PING);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Heartbeat to session {} failed: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void closeQuietly(RegisteredSession session) {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Error closing session {}", session.getId(), e);
+        }
+    }
+}
@@ -3,12 +3,14 @@ package com.example.messenger.service;
 import com.example.messenger.domain.AppUser;
 import com.example.messenger.repository.AppUserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final AppUserRepository appUserRepository;
 
@@ -23,4 +25,14 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                         .orElseThrow(() -> new UsernameNotFoundException("User not found: " + usernameOrEmail)));
         return user;
     }
+
+    /** Stores a re-encoded password hash; called by Spring Security after a successful login. */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        AppUser user = appUserRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
+        user.setPasswordHash(newPassword);
+        return appUserRepository.save(user);
+    }
 }
@@ -0,0 +1,64 @@
+package com.example.messenger.websocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Compact length-prefixed binary encoding of an event frame ({@code messenger.v1.bin}).
+ *
+ * <p>Layout, big-endian:
+ * <pre>
+ *   u8   version (1)
+ *   i64  eventId
+ *   i64  conversationId
+ *   i64  createdAt, epoch milliseconds
+ *   u16  type length, then type as UTF-8
+ *   u32  payload length, then payload as UTF-8 JSON
+ * </pre>
+ * The payload is embedded as the JSON document itself rather than as an escaped JSON string, so it
+ * is copied once and clients parse it directly.
+ */
+public final class BinaryEventCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int FIXED_HEADER_BYTES = 1 + 8 + 8 + 8 + 2 + 4;
+
+    private BinaryEventCodec() {}
+
+    public static byte[] encode(long eventId, long conversationId, Instant createdAt, String type, byte[] payloadJson) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        if (typeBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Event type too long: " + typeBytes.length + " bytes");
+        }
+        ByteBuffer buf = ByteBuffer.allocate(FIXED_HEADER_BYTES + typeBytes.length + payloadJson.length);
+        buf.put(VERSION);
+        buf.putLong(eventId);
+        buf.putLong(conversationId);
+        buf.putLong(createdAt.toEpochMilli());
+        buf.putShort((short) typeBytes.length);
+        buf.put(typeBytes);
+        buf.putInt(payloadJson.length);
+        buf.put(payloadJson);
+        return buf.array();
+    }
+
+    public static Frame decode(ByteBuffer buf) {
+        byte version = buf.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported event frame version: " + version);
+        }
+        long eventId = buf.getLong();
+        long conversationId = buf.getLong();
+        Instant createdAt = Instant.ofEpochMilli(buf.getLong());
+        byte[] typeBytes = new byte[Short.toUnsignedInt(buf.getShort())];
+        buf.get(typeBytes);
+        byte[] payload = new byte[buf.getInt()];
+        buf.get(payload);
+        return new Frame(eventId, conversationId, createdAt, new String(typeBytes, StandardCharsets.UTF_8), payload);
+    }
+
+    /** A decoded event frame; {@code payloadJson} is the raw UTF-8 JSON payload. */
+    public record Frame(long eventId, long conversationId, Instant createdAt, String type, byte[] payloadJson) {}
+}
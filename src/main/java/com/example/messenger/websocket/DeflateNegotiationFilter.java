@@ -0,0 +1,101 @@
+package com.example.messenger.websocket;
+
+import com.example.messenger.config.WebSocketCompressionConfig;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Applies {@link WebSocketCompressionConfig} to WebSocket handshakes by rewriting the client's
+ * {@code Sec-WebSocket-Extensions} offer before Tomcat negotiates it: permessage-deflate offers are
+ * removed when compression is disabled, and the configured {@code *_no_context_takeover} parameters
+ * are added otherwise (RFC 7692 lets the server impose both).
+ */
+class DeflateNegotiationFilter extends OncePerRequestFilter {
+
+    static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    private final WebSocketCompressionConfig config;
+
+    DeflateNegotiationFilter(WebSocketCompressionConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(EXTENSIONS_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        List<String> offers = rewrite(Collections.list(request.getHeaders(EXTENSIONS_HEADER)));
+        filterChain.doFilter(new HttpServletRequestWrapper(request) {
+            @Override
+            public String getHeader(String name) {
+                if (EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                    return offers.isEmpty() ? null : String.join(", ", offers);
+                }
+                return super.getHeader(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+                if (EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                    return Collections.enumeration(offers);
+                }
+                return super.getHeaders(name);
+            }
+        }, response);
+    }
+
+    /** Returns the extension offers (one per element) after applying the compression settings. */
+    List<String> rewrite(List<String> headerValues) {
+        List<String> result = new ArrayList<>();
+        for (String headerValue : headerValues) {
+            for (String offer : headerValue.split(",")) {
+                String trimmed = offer.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (!isDeflate(trimmed)) {
+                    result.add(trimmed);
+                } else if (config.isEnabled()) {
+                    result.add(withParameters(trimmed));
+                }
+            }
+        }
+        return result;
+    }
+
+    private String withParameters(String offer) {
+        String lower = offer.toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(offer);
+        if (config.isServerNoContextTakeover() && !lower.contains(SERVER_NO_CONTEXT_TAKEOVER)) {
+            sb.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (config.isClientNoContextTakeover() && !lower.contains(CLIENT_NO_CONTEXT_TAKEOVER)) {
+            sb.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isDeflate(String offer) {
+        int semicolon = offer.indexOf(';');
+        String name = semicolon < 0 ? offer : offer.substring(0, semicolon);
+        return PERMESSAGE_DEFLATE.equalsIgnoreCase(name.trim());
+    }
+}
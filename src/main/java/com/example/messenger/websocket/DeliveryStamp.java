@@ -0,0 +1,21 @@
+package com.example.messenger.websocket;
+
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * Timing context attached to an outgoing event frame. One stamp is shared by every session that
+ * receives the same frame; {@link RegisteredSession} matches it to the frame by identity when the
+ * frame is finally written, which may be on another thread after buffering.
+ *
+ * @param frame            the frame instance being delivered
+ * @param persistedNanos   {@code System.nanoTime()} right after the event row was saved
+ * @param readyNanos       {@code System.nanoTime()} when fan-out of the frame started
+ * @param conversationType metric tag, e.g. {@code ONE_TO_ONE} or {@code GROUP}
+ */
+public record DeliveryStamp(WebSocketMessage<?> frame, long persistedNanos, long readyNanos, String conversationType) {
+
+    /** Receives a callback when a stamped frame has been written to a session. */
+    public interface Listener {
+        void onWritten(DeliveryStamp stamp, long writtenNanos);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.messenger.websocket;
+
+import java.util.List;
+
+/**
+ * Event encodings a client can select with the WebSocket subprotocol ({@code Sec-WebSocket-Protocol})
+ * at handshake. Clients that request no subprotocol get {@link #JSON}, the original format.
+ */
+public enum EventWireFormat {
+
+    /** Text frames containing a JSON {@code WebSocketMessage}, payload as an escaped string. */
+    JSON("messenger.v1.json"),
+
+    /** Text frames containing a JSON {@code WebSocketMessageV2}, payload as a nested object. */
+    JSON_V2("messenger.v2.json"),
+
+    /** Binary frames in the {@link BinaryEventCodec} layout. */
+    BINARY("messenger.v1.bin");
+
+    /** Subprotocols in server preference order, as advertised by the handler. */
+    public static final List<String> SUBPROTOCOLS = List.of(BINARY.subprotocol, JSON_V2.subprotocol, JSON.subprotocol);
+
+    private final String subprotocol;
+
+    EventWireFormat(String subprotocol) {
+        this.subprotocol = subprotocol;
+    }
+
+    public String getSubprotocol() {
+        return subprotocol;
+    }
+
+    /** Maps the negotiated subprotocol (possibly null or empty) to a wire format. */
+    public static EventWireFormat fromSubprotocol(String subprotocol) {
+        for (EventWireFormat format : values()) {
+            if (format.subprotocol.equals(subprotocol)) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+}
@@ -4,16 +4,23 @@ import com.example.messenger.service.EventService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import java.util.List;
+
 /**
  * Registers and unregisters WebSocket sessions with EventService by user ID.
- * Events are pushed by EventService to participants' sessions; this handler does not handle inbound message types.
+ * Events are pushed by EventService to participants' sessions; this handler does not handle inbound message types,
+ * but any inbound frame (including pong replies to server heartbeats) marks the session as alive.
+ * Advertises the {@link EventWireFormat} subprotocols so clients can choose JSON or binary event frames.
  */
 @Component
-public class MessageWebSocketHandler extends TextWebSocketHandler {
+public class MessageWebSocketHandler extends TextWebSocketHandler implements SubProtocolCapable {
 
     private static final Logger log = LoggerFactory.getLogger(MessageWebSocketHandler.class);
 
@@ -23,6 +30,11 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
         this.eventService = eventService;
     }
 
+    @Override
+    public List<String> getSubProtocols() {
+        return EventWireFormat.SUBPROTOCOLS;
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         Long userId = (Long) session.getAttributes().get(WebSocketAuthInterceptor.getUserIdAttr());
@@ -39,6 +51,16 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
         log.debug("WebSocket session {} registered for user {}", session.getId(), userId);
     }
 
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        touch(session, message.getPayloadLength());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        touch(session, message.getPayloadLength());
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         Long userId = (Long) session.getAttributes().get(WebSocketAuthInterceptor.getUserIdAttr());
@@ -46,4 +68,11 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
             eventService.unregisterSession(userId, session);
         }
     }
+
+    private void touch(WebSocketSession session, int payloadBytes) {
+        Long userId = (Long) session.getAttributes().get(WebSocketAuthInterceptor.getUserIdAttr());
+        if (userId != null) {
+            eventService.touchSession(userId, session, payloadBytes);
+        }
+    }
 }
@@ -0,0 +1,190 @@
+package com.example.messenger.websocket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A registered WebSocket session: the concurrent send decorator plus the owning user, the time
+ * the client was last heard from (any inbound frame, including pong replies to heartbeats), the
+ * negotiated {@link EventWireFormat}, and running payload byte totals in each direction.
+ *
+ * <p>Event sends go through {@link #sendInOrder}: one writer per session at a time, in the order the
+ * sends were submitted, whatever executor runs them. Because that writer never contends with another
+ * sender, the decorator's own limits would never trigger, so the outbox enforces them instead: when the
+ * current write has run longer than the send-time limit, or the queued bytes would exceed the buffer-size
+ * limit, the send is refused with {@link SessionLimitExceededException} ({@code DROP} instead discards
+ * the oldest queued sends to stay under the buffer-size limit).
+ */
+public class RegisteredSession extends ConcurrentWebSocketSessionDecorator {
+
+    private final Long userId;
+    private final boolean compressed;
+    private final EventWireFormat wireFormat;
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final OverflowStrategy overflowStrategy;
+    private final Queue<QueuedSend> outbox = new ConcurrentLinkedQueue<>();
+    private final AtomicLong outboxBytes = new AtomicLong();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    /** {@code System.nanoTime()} at which the writer started the current send; 0 while idle. */
+    private volatile long writeStartedNanos;
+    private volatile long lastSeenMillis;
+
+    public RegisteredSession(Long userId, WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit,
+                             OverflowStrategy overflowStrategy) {
+        this(userId, delegate, null, sendTimeLimit, bufferSizeLimit, overflowStrategy);
+    }
+
+    /**
+     * Creates a session that reports the write time of each {@link #expect(DeliveryStamp) stamped}
+     * frame to {@code deliveryListener}.
+     */
+    public RegisteredSession(Long userId, WebSocketSession delegate, DeliveryStamp.Listener deliveryListener,
+                             int sendTimeLimit, int bufferSizeLimit, OverflowStrategy overflowStrategy) {
+        super(deliveryListener != null ? new TimedWebSocketSession(delegate, deliveryListener) : delegate,
+                sendTimeLimit, bufferSizeLimit, overflowStrategy);
+        this.userId = userId;
+        this.overflowStrategy = overflowStrategy;
+        this.compressed = hasDeflate(delegate.getExtensions());
+        this.wireFormat = EventWireFormat.fromSubprotocol(delegate.getAcceptedProtocol());
+        this.lastSeenMillis = System.currentTimeMillis();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getLastSeenMillis() {
+        return lastSeenMillis;
+    }
+
+    /** Whether permessage-deflate was negotiated for this connection. */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public EventWireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /** Payload bytes received from the client, before decompression. */
+    public long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    /** Payload bytes sent to the client, before compression. */
+    public long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    public void addBytesIn(long bytes) {
+        bytesIn.addAndGet(bytes);
+    }
+
+    public void addBytesOut(long bytes) {
+        bytesOut.addAndGet(bytes);
+    }
+
+    /** Registers the stamp of a frame about to be sent, so its write time is reported. */
+    public void expect(DeliveryStamp stamp) {
+        if (getDelegate() instanceof TimedWebSocketSession timed) {
+            timed.expect(stamp);
+        }
+    }
+
+    /**
+     * Queues {@code send}, which writes a frame of {@code bytes} payload bytes, behind this session's earlier
+     * sends. If no writer is running one is started on {@code executor}; it runs queued sends one at a time
+     * until the queue is empty.
+     * @throws SessionLimitExceededException if the session is too slow to take the send; the outbox has been
+     *         cleared and the caller should close the session
+     */
+    public void sendInOrder(Runnable send, int bytes, Executor executor) throws SessionLimitExceededException {
+        checkOutboxLimits(bytes);
+        outboxBytes.addAndGet(bytes);
+        outbox.add(new QueuedSend(send, bytes));
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(() -> drain(executor));
+        }
+    }
+
+    private void checkOutboxLimits(int bytes) throws SessionLimitExceededException {
+        long started = writeStartedNanos;
+        if (started != 0) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            if (elapsedMillis > getSendTimeLimit()) {
+                clearOutbox();
+                throw new SessionLimitExceededException("Send time " + elapsedMillis + " (ms) for session '"
+                        + getId() + "' exceeded the allowed limit " + getSendTimeLimit(), CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+        if (outboxBytes.get() + bytes <= getBufferSizeLimit() || outbox.isEmpty()) {
+            return;
+        }
+        if (overflowStrategy == OverflowStrategy.TERMINATE) {
+            long queued = outboxBytes.get();
+            clearOutbox();
+            throw new SessionLimitExceededException("Outbox size " + queued + " bytes for session '" + getId()
+                    + "' exceeds the allowed limit " + getBufferSizeLimit(), CloseStatus.SESSION_NOT_RELIABLE);
+        }
+        QueuedSend oldest;
+        while (outboxBytes.get() + bytes > getBufferSizeLimit() && (oldest = outbox.poll()) != null) {
+            outboxBytes.addAndGet(-oldest.bytes());
+        }
+    }
+
+    private void clearOutbox() {
+        QueuedSend queued;
+        while ((queued = outbox.poll()) != null) {
+            outboxBytes.addAndGet(-queued.bytes());
+        }
+    }
+
+    private void drain(Executor executor) {
+        try {
+            QueuedSend next;
+            while ((next = outbox.poll()) != null) {
+                writeStartedNanos = System.nanoTime();
+                try {
+                    next.send().run();
+                } finally {
+                    writeStartedNanos = 0;
+                    outboxBytes.addAndGet(-next.bytes());
+                }
+            }
+        } finally {
+            draining.set(false);
+            // a send queued between the last poll and the reset, or left behind by a failed send, would
+            // otherwise wait for the next one
+            if (!outbox.isEmpty() && draining.compareAndSet(false, true)) {
+                executor.execute(() -> drain(executor));
+            }
+        }
+    }
+
+    /** Records that the client was heard from at {@code nowMillis}. */
+    public void touch(long nowMillis) {
+        this.lastSeenMillis = nowMillis;
+    }
+
+    private static boolean hasDeflate(List<WebSocketExtension> extensions) {
+        if (extensions == null) {
+            return false;
+        }
+        return extensions.stream().anyMatch(e -> "permessage-deflate".equalsIgnoreCase(e.getName()));
+    }
+
+    private record QueuedSend(Runnable send, int bytes) {
+    }
+}
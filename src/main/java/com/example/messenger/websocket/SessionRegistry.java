@@ -0,0 +1,157 @@
+package com.example.messenger.websocket;
+
+import com.example.messenger.config.WebSocketSessionConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Connected WebSocket sessions on this node, indexed by user ID, with running statistics.
+ *
+ * <p>All statistics are maintained incrementally on register/unregister so reading them is O(1)
+ * and a metrics scrape never walks the registry. Per-user updates run inside
+ * {@link ConcurrentHashMap#compute}, which makes the session-map change and the counter updates for
+ * one user atomic with respect to each other.
+ *
+ * <p>The maximum sessions per user is derived from a histogram of "users with exactly n sessions"
+ * and scans at most {@value #MAX_TRACKED_SESSIONS_PER_USER} buckets; users above that are counted in
+ * the top bucket.
+ */
+@Component
+public class SessionRegistry {
+
+    static final int MAX_TRACKED_SESSIONS_PER_USER = 64;
+
+    /** User ID -> (session ID -> decorated session). */
+    private final Map<Long, Map<String, RegisteredSession>> sessionsByUserId = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger users = new AtomicInteger();
+    /** Index n: number of users with exactly n sessions (last index: n or more). */
+    private final AtomicLongArray usersBySessionCount = new AtomicLongArray(MAX_TRACKED_SESSIONS_PER_USER + 1);
+
+    private final Counter connectCounter;
+    private final Counter disconnectCounter;
+    private final DistributionSummary sessionBytesIn;
+    private final DistributionSummary sessionBytesOut;
+
+    public SessionRegistry(WebSocketSessionConfig config, MeterRegistry meterRegistry) {
+        this.connectCounter = Counter.builder("messenger.websocket.connects")
+                .description("WebSocket sessions registered")
+                .tag("node", config.getNodeId())
+                .register(meterRegistry);
+        this.disconnectCounter = Counter.builder("messenger.websocket.disconnects")
+                .description("WebSocket sessions unregistered")
+                .tag("node", config.getNodeId())
+                .register(meterRegistry);
+        this.sessionBytesIn = sessionBytesSummary("in", meterRegistry);
+        this.sessionBytesOut = sessionBytesSummary("out", meterRegistry);
+    }
+
+    private static DistributionSummary sessionBytesSummary(String direction, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("messenger.websocket.session.payload.bytes")
+                .description("Payload bytes before compression per WebSocket connection, recorded when it is unregistered")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    public void register(RegisteredSession session) {
+        sessionsByUserId.compute(session.getUserId(), (k, sessions) -> {
+            if (sessions == null) {
+                sessions = new ConcurrentHashMap<>();
+                users.incrementAndGet();
+            }
+            int before = sessions.size();
+            if (sessions.put(session.getId(), session) == null) {
+                connections.incrementAndGet();
+                connectCounter.increment();
+                moveUser(before, before + 1);
+            }
+            return sessions;
+        });
+    }
+
+    /** Removes the session; returns false if it was not (or no longer) registered. */
+    public boolean unregister(Long userId, String sessionId) {
+        boolean[] removed = new boolean[1];
+        sessionsByUserId.computeIfPresent(userId, (k, sessions) -> {
+            int before = sessions.size();
+            RegisteredSession session = sessions.remove(sessionId);
+            if (session != null) {
+                removed[0] = true;
+                sessionBytesIn.record(session.getBytesIn());
+                sessionBytesOut.record(session.getBytesOut());
+                connections.decrementAndGet();
+                disconnectCounter.increment();
+                moveUser(before, before - 1);
+            }
+            if (sessions.isEmpty()) {
+                users.decrementAndGet();
+                return null;
+            }
+            return sessions;
+        });
+        return removed[0];
+    }
+
+    /** Records inbound activity for the session; returns it, or null if not registered. */
+    public RegisteredSession touch(Long userId, String sessionId, long nowMillis) {
+        Map<String, RegisteredSession> sessions = sessionsByUserId.get(userId);
+        RegisteredSession session = sessions != null ? sessions.get(sessionId) : null;
+        if (session != null) {
+            session.touch(nowMillis);
+        }
+        return session;
+    }
+
+    /** Sessions currently registered for the user; empty if none. */
+    public Collection<RegisteredSession> sessionsFor(Long userId) {
+        Map<String, RegisteredSession> sessions = sessionsByUserId.get(userId);
+        return sessions != null ? sessions.values() : List.of();
+    }
+
+    /** Applies the action to every registered session; weakly consistent with concurrent updates. */
+    public void forEach(Consumer<RegisteredSession> action) {
+        sessionsByUserId.values().forEach(sessions -> sessions.values().forEach(action));
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public int getUserCount() {
+        return users.get();
+    }
+
+    public int getMaxSessionsPerUser() {
+        for (int n = MAX_TRACKED_SESSIONS_PER_USER; n > 0; n--) {
+            if (usersBySessionCount.get(n) > 0) {
+                return n;
+            }
+        }
+        return 0;
+    }
+
+    private void moveUser(int fromCount, int toCount) {
+        if (fromCount > 0) {
+            usersBySessionCount.decrementAndGet(bucket(fromCount));
+        }
+        if (toCount > 0) {
+            usersBySessionCount.incrementAndGet(bucket(toCount));
+        }
+    }
+
+    private static int bucket(int sessionCount) {
+        return Math.min(sessionCount, MAX_TRACKED_SESSIONS_PER_USER);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.messenger.websocket;
+
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Innermost session wrapper, beneath the concurrent send decorator: its {@code sendMessage} runs
+ * when a frame actually reaches the socket, so that is where write times are taken.
+ *
+ * <p>Stamps are queued in send order by {@link #expect(DeliveryStamp)}. A written frame removes only
+ * the stamp whose frame it is (normally the head, so the scan is short); unstamped frames such as
+ * pings, or frames written out of order, leave the other stamps in place. Stamps of frames that are
+ * never written (dropped on overflow, session closing) are discarded oldest first once more than
+ * {@value #MAX_PENDING} are outstanding.
+ */
+class TimedWebSocketSession extends WebSocketSessionDecorator {
+
+    static final int MAX_PENDING = 1024;
+
+    private final DeliveryStamp.Listener listener;
+    private final Queue<DeliveryStamp> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    TimedWebSocketSession(WebSocketSession delegate, DeliveryStamp.Listener listener) {
+        super(delegate);
+        this.listener = listener;
+    }
+
+    void expect(DeliveryStamp stamp) {
+        pending.add(stamp);
+        if (pendingCount.incrementAndGet() > MAX_PENDING && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        super.sendMessage(message);
+        long writtenNanos = System.nanoTime();
+        for (Iterator<DeliveryStamp> it = pending.iterator(); it.hasNext(); ) {
+            DeliveryStamp stamp = it.next();
+            if (stamp.frame() == message) {
+                it.remove();
+                pendingCount.decrementAndGet();
+                listener.onWritten(stamp, writtenNanos);
+                return;
+            }
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.messenger.websocket;
 
+import com.example.messenger.config.WebSocketCompressionConfig;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
@@ -7,12 +10,15 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 
 /**
  * Registers the WebSocket endpoint at /api/v1/events. Authentication is performed
- * via query parameter {@code token} (JWT) in the handshake.
+ * via query parameter {@code token} (JWT) in the handshake. permessage-deflate negotiation
+ * follows {@link WebSocketCompressionConfig}.
  */
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    static final String ENDPOINT = "/api/v1/events";
+
     private final WebSocketAuthInterceptor webSocketAuthInterceptor;
     private final MessageWebSocketHandler messageWebSocketHandler;
 
@@ -23,8 +29,17 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(messageWebSocketHandler, "/api/v1/events")
+        registry.addHandler(messageWebSocketHandler, ENDPOINT)
                 .addInterceptors(webSocketAuthInterceptor)
                 .setAllowedOrigins("*");
     }
+
+    @Bean
+    public FilterRegistrationBean<DeflateNegotiationFilter> deflateNegotiationFilter(WebSocketCompressionConfig compressionConfig) {
+        FilterRegistrationBean<DeflateNegotiationFilter> registration = new FilterRegistrationBean<>();
+        registration.setFilter(new DeflateNegotiationFilter(compressionConfig));
+        registration.addUrlPatterns(ENDPOINT);
+        registration.setName("deflateNegotiationFilter");
+        return registration;
+    }
 }
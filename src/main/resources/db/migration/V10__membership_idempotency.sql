@@ -0,0 +1,29 @@
+-- V10__membership_idempotency.sql
+-- Idempotent conversation creation and membership changes.
+--
+-- A user can be a participant of a conversation at most once; retried joins become no-ops instead of
+-- duplicate rows that inflate fan-out. Existing duplicates keep their oldest row.
+
+DELETE FROM conversation_participant p
+USING conversation_participant q
+WHERE p.conversation_id = q.conversation_id
+  AND p.user_id = q.user_id
+  AND p.id > q.id;
+
+-- Also serves the (conversation_id, user_id) membership checks
+ALTER TABLE conversation_participant
+    ADD CONSTRAINT uk_conversation_participant UNIQUE (conversation_id, user_id);
+
+-- Idempotency keys for writes other than message sends (see message_idempotency_claim for those).
+-- scope names the operation, owner_id the user (or conversation) the key belongs to; result_id is the
+-- id of what the first request produced and is set in the same transaction as the claim.
+CREATE TABLE idempotency_claim (
+    scope VARCHAR(32) NOT NULL,
+    owner_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    result_id BIGINT,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (scope, owner_id, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_claim_created_at ON idempotency_claim(created_at);
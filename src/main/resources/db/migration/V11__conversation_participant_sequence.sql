@@ -0,0 +1,7 @@
+-- V11__conversation_participant_sequence.sql
+-- Participants take ids from a sequence that Hibernate allocates 50 at a time (pooled optimizer), so a
+-- whole group is inserted in one JDBC batch instead of one round trip per member.
+
+CREATE SEQUENCE IF NOT EXISTS conversation_participant_id_seq OWNED BY conversation_participant.id;
+ALTER SEQUENCE conversation_participant_id_seq INCREMENT BY 50;
+SELECT setval('conversation_participant_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM conversation_participant));
@@ -0,0 +1,11 @@
+-- V12__message_tombstones.sql
+-- User-controlled message deletion. A deleted message keeps its row (ids, cursors and event resume stay
+-- valid) with deleted_at set; MessageCompactionService later replaces its body with an empty one.
+
+ALTER TABLE message ADD COLUMN deleted_at TIMESTAMP;
+
+-- Cursor pagination over visible messages: WHERE conversation_id = ? AND id > ? AND deleted_at IS NULL ORDER BY id
+CREATE INDEX idx_message_visible ON message(conversation_id, id) WHERE deleted_at IS NULL;
+
+-- Compaction: deleted messages whose body has not been scrubbed yet (normally a handful of rows)
+CREATE INDEX idx_message_pending_scrub ON message(id) WHERE deleted_at IS NOT NULL AND octet_length(body) > 0;
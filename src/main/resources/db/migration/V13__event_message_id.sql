@@ -0,0 +1,9 @@
+-- V13__event_message_id.sql
+-- message events record which message they carry, so deleting a message can redact the plaintext body
+-- from its event payload (clients resuming from the event log would otherwise still receive it).
+
+ALTER TABLE event ADD COLUMN message_id BIGINT;
+
+UPDATE event SET message_id = (payload->>'id')::bigint WHERE type = 'message';
+
+CREATE INDEX idx_event_message_id ON event(message_id) WHERE message_id IS NOT NULL;
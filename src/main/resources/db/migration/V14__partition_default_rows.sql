@@ -0,0 +1,34 @@
+-- V14__partition_default_rows.sql
+-- Make sure message and event have monthly partitions from the oldest row in their DEFAULT partition
+-- (or the current month) through next month, moving any rows out of DEFAULT into them.
+--
+-- PostgreSQL cannot create a range partition while DEFAULT holds rows in that range, so each DEFAULT
+-- partition is detached while the partitions are created and its rows moved, then re-attached.
+-- PartitionMaintenanceService does the same on its schedule.
+
+DO $$
+DECLARE
+    parent TEXT;
+    default_partition TEXT;
+    first_month DATE;
+    last_month DATE := (date_trunc('month', now()) + INTERVAL '1 month')::date;
+    m DATE;
+BEGIN
+    FOREACH parent IN ARRAY ARRAY['message', 'event'] LOOP
+        default_partition := parent || '_default';
+        EXECUTE format('SELECT LEAST(COALESCE(date_trunc(''month'', MIN(created_at)), date_trunc(''month'', now())), '
+                       || 'date_trunc(''month'', now()))::date FROM %I', default_partition)
+            INTO first_month;
+        EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent, default_partition);
+        m := first_month;
+        WHILE m <= last_month LOOP
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           parent || '_p' || to_char(m, 'YYYY_MM'), parent, m, (m + INTERVAL '1 month')::date);
+            m := (m + INTERVAL '1 month')::date;
+        END LOOP;
+        EXECUTE format('INSERT INTO %I SELECT * FROM %I WHERE created_at < %L',
+                       parent, default_partition, last_month + INTERVAL '1 month');
+        EXECUTE format('DELETE FROM %I WHERE created_at < %L', default_partition, last_month + INTERVAL '1 month');
+        EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I DEFAULT', parent, default_partition);
+    END LOOP;
+END $$;
@@ -0,0 +1,5 @@
+-- V15__reencryption_checkpoint_failed.sql
+-- Bodies the re-encryption job could not decrypt and left under their old key. While this is non-zero
+-- the checkpoint is not marked complete, so completed_at stays a safe signal to drop the old key.
+
+ALTER TABLE crypto_reencryption_checkpoint ADD COLUMN failed BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,8 @@
+-- V3__retention_indexes.sql
+-- Indexes backing the batched retention purge (RetentionService)
+
+-- Events are purged oldest-first by created_at
+CREATE INDEX IF NOT EXISTS idx_event_created_at ON event(created_at);
+
+-- Revoked refresh tokens are purged regardless of expiry; a partial index keeps the lookup small
+CREATE INDEX IF NOT EXISTS idx_refresh_token_revoked ON refresh_token(id) WHERE revoked = TRUE;
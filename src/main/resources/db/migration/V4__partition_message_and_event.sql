@@ -0,0 +1,66 @@
+-- V4__partition_message_and_event.sql
+-- Convert message and event to monthly RANGE partitions on created_at.
+--
+-- PostgreSQL requires the partition key in every primary key / unique constraint, so the
+-- primary keys become (id, created_at). Ids are still drawn from the original sequences and
+-- remain unique; the JPA mappings keep using id alone as the identifier.
+--
+-- Upcoming partitions are created by PartitionMaintenanceService; the DEFAULT partitions only
+-- catch rows that arrive before maintenance has run and should normally stay empty.
+
+ALTER TABLE message RENAME TO message_unpartitioned;
+ALTER TABLE event RENAME TO event_unpartitioned;
+
+CREATE TABLE message (LIKE message_unpartitioned INCLUDING DEFAULTS) PARTITION BY RANGE (created_at);
+CREATE TABLE event (LIKE event_unpartitioned INCLUDING DEFAULTS) PARTITION BY RANGE (created_at);
+
+-- One partition per month from the oldest existing row up to three months ahead
+DO $$
+DECLARE
+    parent TEXT;
+    first_month DATE;
+    last_month DATE := (date_trunc('month', now()) + INTERVAL '3 months')::date;
+    m DATE;
+BEGIN
+    FOREACH parent IN ARRAY ARRAY['message', 'event'] LOOP
+        EXECUTE format('SELECT COALESCE(date_trunc(''month'', MIN(created_at)), date_trunc(''month'', now()))::date FROM %I',
+                       parent || '_unpartitioned')
+            INTO first_month;
+        m := first_month;
+        WHILE m <= last_month LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           parent || '_p' || to_char(m, 'YYYY_MM'), parent, m, (m + INTERVAL '1 month')::date);
+            m := (m + INTERVAL '1 month')::date;
+        END LOOP;
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', parent || '_default', parent);
+    END LOOP;
+END $$;
+
+INSERT INTO message SELECT * FROM message_unpartitioned;
+INSERT INTO event SELECT * FROM event_unpartitioned;
+
+-- Keep the id sequences alive when the old tables are dropped
+DO $$
+BEGIN
+    EXECUTE format('ALTER SEQUENCE %s OWNED BY message.id', pg_get_serial_sequence('message_unpartitioned', 'id'));
+    EXECUTE format('ALTER SEQUENCE %s OWNED BY event.id', pg_get_serial_sequence('event_unpartitioned', 'id'));
+END $$;
+
+DROP TABLE message_unpartitioned;
+DROP TABLE event_unpartitioned;
+
+-- Constraints and indexes (created after the copy; partitioned indexes cascade to every partition)
+ALTER TABLE message ADD CONSTRAINT pk_message PRIMARY KEY (id, created_at);
+ALTER TABLE message ADD CONSTRAINT fk_message_conversation FOREIGN KEY (conversation_id) REFERENCES conversation(id);
+ALTER TABLE message ADD CONSTRAINT fk_message_sender FOREIGN KEY (sender_id) REFERENCES app_user(id);
+
+-- Cursor pagination: WHERE conversation_id = ? AND id > ? ORDER BY id
+CREATE INDEX idx_message_conversation_id ON message(conversation_id, id);
+CREATE INDEX idx_message_sender ON message(sender_id);
+CREATE INDEX idx_message_created_at ON message(created_at);
+
+ALTER TABLE event ADD CONSTRAINT pk_event PRIMARY KEY (id, created_at);
+
+-- Resume: WHERE conversation_id = ? AND id > ? ORDER BY id
+CREATE INDEX idx_event_conversation_id ON event(conversation_id, id);
+CREATE INDEX idx_event_created_at ON event(created_at);
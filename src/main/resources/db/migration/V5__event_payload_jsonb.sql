@@ -0,0 +1,5 @@
+-- Store event payloads as jsonb instead of TEXT. Payloads are written once as JSON documents and
+-- embedded verbatim in WebSocket frames; jsonb validates them on insert and allows indexed queries.
+-- On the partitioned table this rewrites every partition.
+
+ALTER TABLE event ALTER COLUMN payload TYPE jsonb USING payload::jsonb;
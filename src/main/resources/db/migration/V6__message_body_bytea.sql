@@ -0,0 +1,11 @@
+-- Store message bodies as raw encryption envelopes (bytea) instead of Base64 text.
+-- AES-GCM envelopes were Base64-encoded only to fit the VARCHAR column and are decoded back to
+-- their binary form. Legacy ED448v1| placeholder bodies are kept as their UTF-8 bytes; the
+-- application recognises them by prefix and decodes them on read.
+-- On the partitioned table this rewrites every partition.
+
+ALTER TABLE message ALTER COLUMN body TYPE bytea USING
+    CASE
+        WHEN body LIKE 'ED448v1|%' THEN convert_to(body, 'UTF8')
+        ELSE decode(body, 'base64')
+    END;
@@ -0,0 +1,11 @@
+-- V7__reencryption_checkpoint.sql
+-- Progress of the background message re-encryption job (ReencryptionService), one row per target key id.
+-- The job walks message in id order and resumes from last_message_id after a restart.
+
+CREATE TABLE crypto_reencryption_checkpoint (
+    key_id INTEGER PRIMARY KEY,
+    last_message_id BIGINT NOT NULL DEFAULT 0,
+    rewritten BIGINT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL
+);
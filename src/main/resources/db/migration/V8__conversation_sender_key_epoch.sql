@@ -0,0 +1,5 @@
+-- V8__conversation_sender_key_epoch.sql
+-- Sender-key epoch per conversation. Messages are encrypted under a chain per (conversation, sender,
+-- epoch); incrementing the epoch makes every sender start a new chain.
+
+ALTER TABLE conversation ADD COLUMN sender_key_epoch INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,30 @@
+-- V9__message_idempotency_claim.sql
+-- Race-free idempotency for keyed message sends.
+--
+-- message is partitioned by created_at, and PostgreSQL only allows unique indexes there that include
+-- the partition key, so (conversation_id, idempotency_key) cannot be enforced on message itself. A send
+-- first claims its key in this unpartitioned table with INSERT ... ON CONFLICT DO NOTHING; only the
+-- claimant inserts the message, a concurrent retry waits for it and then reads the winner.
+
+ALTER TABLE message ADD COLUMN IF NOT EXISTS idempotency_key VARCHAR(255);
+
+CREATE TABLE message_idempotency_claim (
+    conversation_id BIGINT NOT NULL REFERENCES conversation(id),
+    idempotency_key VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (conversation_id, idempotency_key)
+);
+
+-- Retention purges old claims in created_at order
+CREATE INDEX idx_message_idempotency_claim_created_at ON message_idempotency_claim(created_at);
+
+-- Losing claimants look the winning message up by key; only keyed messages are indexed
+CREATE INDEX idx_message_idempotency_key ON message(conversation_id, idempotency_key)
+    WHERE idempotency_key IS NOT NULL;
+
+-- Keys sent before this migration keep deduplicating
+INSERT INTO message_idempotency_claim (conversation_id, idempotency_key, created_at)
+SELECT conversation_id, idempotency_key, MIN(created_at)
+FROM message
+WHERE idempotency_key IS NOT NULL
+GROUP BY conversation_id, idempotency_key;
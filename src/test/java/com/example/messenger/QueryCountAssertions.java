@@ -0,0 +1,44 @@
+package com.example.messenger;
+
+import com.example.messenger.config.QueryCounter;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards against N+1 regressions: asserts that a service call issues at most a given number of JDBC
+ * statements, as counted by the datasource proxy on the calling thread (see {@code QueryMetricsConfig}).
+ *
+ * <p>Only statements executed during the call are counted; writes that Hibernate defers until a later
+ * flush are not, so flush inside the call when they matter.
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    public static <T> T assertMaxStatements(int max, Supplier<T> call) {
+        QueryCounter counter = QueryCounter.current();
+        long before = counter.getStatements();
+        T result = call.get();
+        long executed = counter.getStatements() - before;
+        assertTrue(executed <= max, "Expected at most " + max + " JDBC statements but " + executed + " were executed");
+        return result;
+    }
+
+    /** Number of JDBC statements {@code call} issues. */
+    public static long countStatements(Runnable call) {
+        QueryCounter counter = QueryCounter.current();
+        long before = counter.getStatements();
+        call.run();
+        return counter.getStatements() - before;
+    }
+
+    public static void assertMaxStatements(int max, Runnable call) {
+        assertMaxStatements(max, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.messenger.api;
+
+import com.example.messenger.domain.AppUser;
+import com.example.messenger.dto.MembershipEventPayload;
+import com.example.messenger.dto.ParticipantsRequest;
+import com.example.messenger.service.MessageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * The participants endpoints hand the whole list to one bulk service call, so each request produces
+ * at most one membership event.
+ */
+class MessagingControllerTest {
+
+    private final MessageService service = mock(MessageService.class);
+    private final MessagingController controller = new MessagingController(service);
+
+    @Test
+    void addParticipants_makesOneBulkCall() {
+        AppUser owner = user(1L);
+        MembershipEventPayload change = new MembershipEventPayload(List.of(2L, 3L), List.of(), 3, 0);
+        when(service.addParticipants(7L, 1L, List.of(2L, 3L))).thenReturn(change);
+
+        ResponseEntity<MembershipEventPayload> response =
+                controller.addParticipants(7L, new ParticipantsRequest(List.of(2L, 3L)), owner);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(change, response.getBody());
+        verify(service, times(1)).addParticipants(7L, 1L, List.of(2L, 3L));
+        verifyNoMoreInteractions(service);
+    }
+
+    @Test
+    void removeParticipants_makesOneBulkCall() {
+        AppUser owner = user(1L);
+        MembershipEventPayload change = new MembershipEventPayload(List.of(), List.of(2L, 3L), 1, 1);
+        when(service.removeParticipants(7L, 1L, List.of(2L, 3L))).thenReturn(change);
+
+        ResponseEntity<MembershipEventPayload> response =
+                controller.removeParticipants(7L, new ParticipantsRequest(List.of(2L, 3L)), owner);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(change, response.getBody());
+        verify(service, times(1)).removeParticipants(7L, 1L, List.of(2L, 3L));
+        verifyNoMoreInteractions(service);
+    }
+
+    private static AppUser user(Long id) {
+        AppUser user = mock(AppUser.class);
+        when(user.getId()).thenReturn(id);
+        return user;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.messenger.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * QueryCounter times statements in nanoseconds and carries the endpoint label onto executor threads.
+ */
+class QueryCounterTest {
+
+    @AfterEach
+    void tearDown() {
+        QueryCounter.clear();
+    }
+
+    @Test
+    void recordStatement_measuresSubMillisecondStatements() {
+        QueryCounter counter = QueryCounter.current();
+
+        counter.startStatement();
+        long spinUntil = System.nanoTime() + 100_000;
+        while (System.nanoTime() < spinUntil) {
+            Thread.onSpinWait();
+        }
+        long elapsed = counter.recordStatement();
+
+        // whole milliseconds would have recorded this 0.1 ms statement as 0
+        assertTrue(elapsed >= 100_000, "elapsed " + elapsed + " ns");
+        assertEquals(1, counter.getStatements());
+        assertEquals(elapsed, counter.getElapsedNanos());
+    }
+
+    @Test
+    void propagateEndpoint_labelsWorkerStatementsWithCallerEndpoint() throws Exception {
+        QueryCounter.current().setEndpoint("POST /api/v1/auth/login");
+        AtomicReference<String> during = new AtomicReference<>();
+        AtomicReference<String> after = new AtomicReference<>();
+        Runnable task = QueryCounter.propagateEndpoint(() -> during.set(QueryCounter.current().getEndpoint()));
+
+        Thread worker = new Thread(() -> {
+            task.run();
+            after.set(QueryCounter.current().getEndpoint());
+        });
+        worker.start();
+        worker.join();
+
+        assertEquals("POST /api/v1/auth/login", during.get());
+        assertEquals(QueryCounter.NONE, after.get());
+    }
+}
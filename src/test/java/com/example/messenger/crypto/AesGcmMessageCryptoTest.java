@@ -0,0 +1,267 @@
+package com.example.messenger.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AesGcmMessageCryptoTest {
+
+    private static final byte[] MASTER_KEY = "test-master-key-of-at-least-thirty-two-bytes".getBytes(StandardCharsets.UTF_8);
+
+    private final Ed448MessageCrypto legacy = new Ed448MessageCrypto();
+    private final AesGcmMessageCrypto crypto = new AesGcmMessageCrypto(MASTER_KEY, 2, legacy);
+
+    @Test
+    void encryptAndDecrypt_roundTripsUtf8() {
+        String body = "héllo 👋";
+
+        String envelope = crypto.encrypt(42L, body);
+
+        assertNotEquals(body, envelope);
+        assertEquals(body, crypto.decrypt(42L, envelope));
+    }
+
+    @Test
+    void encrypt_usesFreshNonceAndCompactEnvelope() {
+        String first = crypto.encrypt(42L, "same");
+        String second = crypto.encrypt(42L, "same");
+
+        assertNotEquals(first, second);
+        byte[] envelope = Base64.getDecoder().decode(first);
+        assertEquals(AesGcmMessageCrypto.VERSION_2, envelope[0]);
+        assertEquals(KeyRing.INITIAL_KEY_ID, AesGcmMessageCrypto.keyId(envelope));
+        assertEquals(AesGcmMessageCrypto.V2_HEADER_LENGTH + AesGcmMessageCrypto.NONCE_LENGTH + 4 + AesGcmMessageCrypto.TAG_LENGTH,
+                envelope.length);
+    }
+
+    @Test
+    void decrypt_rejectsEnvelopeFromAnotherConversation() {
+        String envelope = crypto.encrypt(1L, "secret");
+
+        assertThrows(IllegalArgumentException.class, () -> crypto.decrypt(2L, envelope));
+    }
+
+    @Test
+    void decrypt_rejectsTamperedCiphertext() {
+        byte[] envelope = Base64.getDecoder().decode(crypto.encrypt(42L, "secret"));
+        envelope[envelope.length - 1] ^= 1;
+
+        assertThrows(IllegalArgumentException.class,
+                () -> crypto.decrypt(42L, Base64.getEncoder().encodeToString(envelope)));
+    }
+
+    @Test
+    void decrypt_readsLegacyPlaceholderBodies() {
+        String stored = legacy.encrypt(42L, "old message");
+
+        assertEquals("old message", crypto.decrypt(42L, stored));
+    }
+
+    @Test
+    void encryptBytesAndDecryptBytes_roundTripWithoutBase64() {
+        byte[] envelope = crypto.encryptBytes(42L, "binary");
+
+        assertEquals(AesGcmMessageCrypto.VERSION_2, envelope[0]);
+        assertEquals(AesGcmMessageCrypto.V2_HEADER_LENGTH + AesGcmMessageCrypto.NONCE_LENGTH + 6 + AesGcmMessageCrypto.TAG_LENGTH,
+                envelope.length);
+        assertEquals("binary", crypto.decryptBytes(42L, envelope));
+    }
+
+    @Test
+    void decryptBytes_readsLegacyPlaceholderBodiesStoredAsUtf8() {
+        byte[] stored = legacy.encrypt(42L, "old message").getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("old message", crypto.decryptBytes(42L, stored));
+    }
+
+    @Test
+    void decryptAll_preservesOrderSequentiallyAndInParallel() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            AesGcmMessageCrypto parallel = new AesGcmMessageCrypto(MASTER_KEY, 2, legacy, pool, 4);
+            List<String> bodies = IntStream.range(0, 20).mapToObj(i -> "msg-" + i).toList();
+            List<byte[]> envelopes = bodies.stream().map(b -> parallel.encryptBytes(42L, b)).toList();
+
+            assertEquals(bodies.subList(0, 3), parallel.decryptAll(42L, envelopes.subList(0, 3)));
+            assertEquals(bodies, parallel.decryptAll(42L, envelopes));
+            assertEquals(List.of(), parallel.decryptAll(42L, List.of()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void decryptAll_propagatesAuthenticationFailure() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            AesGcmMessageCrypto parallel = new AesGcmMessageCrypto(MASTER_KEY, 2, legacy, pool, 1);
+            List<byte[]> envelopes = List.of(parallel.encryptBytes(42L, "ok"), parallel.encryptBytes(7L, "other"));
+
+            assertThrows(IllegalArgumentException.class, () -> parallel.decryptAll(42L, envelopes));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void decryptBytes_readsVersion1EnvelopesWithInitialKey() throws Exception {
+        byte[] info = ByteBuffer.allocate(25 + Long.BYTES)
+                .put("messenger/conversation/v1".getBytes(StandardCharsets.US_ASCII)).putLong(42L).array();
+        SecretKeySpec key = new SecretKeySpec(Hkdf.extract(null, MASTER_KEY).expand(info, 32), "AES");
+        byte[] nonce = new byte[AesGcmMessageCrypto.NONCE_LENGTH];
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, nonce));
+        cipher.updateAAD(ByteBuffer.allocate(1 + Long.BYTES).put(AesGcmMessageCrypto.VERSION_1).putLong(42L).array());
+        byte[] sealed = cipher.doFinal("v1 body".getBytes(StandardCharsets.UTF_8));
+        byte[] v1 = ByteBuffer.allocate(1 + nonce.length + sealed.length)
+                .put(AesGcmMessageCrypto.VERSION_1).put(nonce).put(sealed).array();
+
+        assertEquals("v1 body", crypto.decryptBytes(42L, v1));
+        assertTrue(crypto.needsReencryption(v1));
+    }
+
+    @Test
+    void rotation_oldKeysStayDecryptOnlyAndOldEnvelopesNeedReencryption() {
+        byte[] newKey = "second-master-key-of-at-least-thirty-two-bytes".getBytes(StandardCharsets.UTF_8);
+        AesGcmMessageCrypto rotated = new AesGcmMessageCrypto(
+                new KeyRing(Map.of(1, MASTER_KEY, 2, newKey), 2), 16, legacy, null, Integer.MAX_VALUE);
+        byte[] old = crypto.encryptBytes(42L, "before rotation");
+
+        byte[] fresh = rotated.encryptBytes(42L, "after rotation");
+
+        assertEquals(2, AesGcmMessageCrypto.keyId(fresh));
+        assertEquals("before rotation", rotated.decryptBytes(42L, old));
+        assertEquals("after rotation", rotated.decryptBytes(42L, fresh));
+        assertTrue(rotated.needsReencryption(old));
+        assertFalse(rotated.needsReencryption(fresh));
+        assertTrue(rotated.needsReencryption(legacy.encrypt(42L, "x").getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> crypto.decryptBytes(42L, fresh));
+    }
+
+    @Test
+    void decryptBytes_rejectsRelabelledKeyId() {
+        AesGcmMessageCrypto rotated = new AesGcmMessageCrypto(
+                new KeyRing(Map.of(1, MASTER_KEY, 2, MASTER_KEY), 1), 16, legacy, null, Integer.MAX_VALUE);
+        byte[] envelope = rotated.encryptBytes(42L, "secret");
+        envelope[2] = 2;
+
+        assertThrows(IllegalArgumentException.class, () -> rotated.decryptBytes(42L, envelope));
+    }
+
+    @Test
+    void keyRing_rejectsActiveKeyOutsideRing() {
+        assertThrows(IllegalArgumentException.class, () -> new KeyRing(Map.of(1, MASTER_KEY), 2));
+    }
+
+    @Test
+    void senderKeyEnvelope_roundTripsAndAnnouncesEachChainOnce() {
+        List<Object> events = new ArrayList<>();
+        AesGcmMessageCrypto sender = new AesGcmMessageCrypto(KeyRing.single(MASTER_KEY), 16, legacy, null,
+                Integer.MAX_VALUE, events::add);
+
+        byte[] first = sender.encryptBytes(42L, 7L, 0, "one");
+        byte[] second = sender.encryptBytes(42L, 7L, 0, "two");
+        byte[] nextEpoch = sender.encryptBytes(42L, 7L, 1, "three");
+
+        assertEquals(AesGcmMessageCrypto.VERSION_3, first[0]);
+        assertEquals(List.of("one", "two", "three"), sender.decryptAll(42L, List.of(first, second, nextEpoch)));
+        assertEquals(List.of(new SenderKeyDistributionEvent(42L, 7L, 0, 1), new SenderKeyDistributionEvent(42L, 7L, 1, 1)),
+                events);
+        assertEquals(2, sender.senderKeys().chainDerivations());
+        // a reader without the cached chain derives it from the envelope header alone
+        assertEquals("two", crypto.decryptBytes(42L, second));
+    }
+
+    @Test
+    void retractAnnouncement_announcesChainAgainOnNextSend() {
+        List<Object> events = new ArrayList<>();
+        AesGcmMessageCrypto sender = new AesGcmMessageCrypto(KeyRing.single(MASTER_KEY), 16, legacy, null,
+                Integer.MAX_VALUE, events::add);
+
+        sender.encryptBytes(42L, 7L, 0, "rolled back");
+        sender.senderKeys().retractAnnouncement(new SenderKeyChains.ChainId(1, 42L, 7L, 0));
+        sender.encryptBytes(42L, 7L, 0, "committed");
+        sender.encryptBytes(42L, 7L, 0, "again");
+
+        SenderKeyDistributionEvent announcement = new SenderKeyDistributionEvent(42L, 7L, 0, 1);
+        assertEquals(List.of(announcement, announcement), events);
+    }
+
+    @Test
+    void senderKeyEnvelope_rejectsForgedSender() {
+        byte[] envelope = crypto.encryptBytes(42L, 7L, 0, "secret");
+        envelope[AesGcmMessageCrypto.V2_HEADER_LENGTH + 7] ^= 1;
+
+        assertThrows(IllegalArgumentException.class, () -> crypto.decryptBytes(42L, envelope));
+    }
+
+    @Test
+    void reencrypt_keepsSenderKeyEnvelope() {
+        byte[] newKey = "second-master-key-of-at-least-thirty-two-bytes".getBytes(StandardCharsets.UTF_8);
+        List<Object> events = new ArrayList<>();
+        AesGcmMessageCrypto rotated = new AesGcmMessageCrypto(
+                new KeyRing(Map.of(1, MASTER_KEY, 2, newKey), 2), 16, legacy, null, Integer.MAX_VALUE, events::add);
+        byte[] old = crypto.encryptBytes(42L, 7L, 3, "group message");
+
+        byte[] rewritten = rotated.reencrypt(42L, old);
+
+        assertEquals(AesGcmMessageCrypto.VERSION_3, rewritten[0]);
+        assertEquals(2, AesGcmMessageCrypto.keyId(rewritten));
+        assertFalse(rotated.needsReencryption(rewritten));
+        assertEquals("group message", rotated.decryptBytes(42L, rewritten));
+        // re-sealing an old epoch is not a new sending chain
+        assertEquals(List.of(), events);
+        assertEquals(0, rotated.senderKeys().size());
+    }
+
+    @Test
+    void decrypt_doesNotEvictSendingChains() {
+        List<Object> events = new ArrayList<>();
+        AesGcmMessageCrypto sender = new AesGcmMessageCrypto(KeyRing.single(MASTER_KEY), 2, legacy, null,
+                Integer.MAX_VALUE, events::add);
+        sender.encryptBytes(42L, 7L, 0, "mine");
+        for (long otherSender = 100; otherSender < 110; otherSender++) {
+            sender.decryptBytes(42L, crypto.encryptBytes(42L, otherSender, 0, "theirs"));
+        }
+
+        sender.encryptBytes(42L, 7L, 0, "mine again");
+
+        assertEquals(1, sender.senderKeys().size());
+        assertEquals(List.of(new SenderKeyDistributionEvent(42L, 7L, 0, 1)), events);
+    }
+
+    @Test
+    void keysAreDerivedPerConversationAndCacheIsBounded() {
+        String envelope = crypto.encrypt(1L, "one");
+        crypto.encrypt(2L, "two");
+        crypto.encrypt(3L, "three");
+
+        assertEquals(2, crypto.cachedKeyCount());
+        // evicted keys are re-derived identically
+        assertEquals("one", crypto.decrypt(1L, envelope));
+        assertTrue(crypto.cachedKeyCount() <= 2);
+    }
+
+    @Test
+    void encryptAndDecrypt_allowNullPayload() {
+        assertNull(crypto.encrypt(42L, null));
+        assertNull(crypto.decrypt(42L, null));
+    }
+
+    @Test
+    void constructor_rejectsShortMasterKey() {
+        assertThrows(IllegalArgumentException.class, () -> new AesGcmMessageCrypto(new byte[16], 10, legacy));
+    }
+}
@@ -2,6 +2,9 @@ package com.example.messenger.crypto;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -22,4 +25,12 @@ class NoopMessageCryptoTest {
         assertNull(crypto.encrypt(42L, null));
         assertNull(crypto.decrypt(42L, null));
     }
+
+    @Test
+    void encryptBytesAndDecryptBytes_storeUtf8() {
+        byte[] stored = crypto.encryptBytes(42L, "hello");
+
+        assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), stored);
+        assertEquals("hello", crypto.decryptBytes(42L, stored));
+    }
 }
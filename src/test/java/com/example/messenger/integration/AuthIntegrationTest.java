@@ -13,8 +13,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -30,6 +37,10 @@ class AuthIntegrationTest extends BaseIntegrationTest {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // Login runs on the auth executor, which only sees committed users: the login tests commit
+    // their registrations, so their usernames and emails are unique per run.
+    private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+
     @BeforeEach
     void setUp() {
         log.info("═══════════════════════════════════════════════════════════");
@@ -114,13 +125,14 @@ class AuthIntegrationTest extends BaseIntegrationTest {
     }
 
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     void shouldLoginWithUsername() throws Exception {
         log.info("▶ Starting test: shouldLoginWithUsername");
         
         // Register user first
         AuthRequest registerRequest = new AuthRequest();
-        registerRequest.setUsernameOrEmail("loginuser");
-        registerRequest.setEmail("login@example.com");
+        registerRequest.setUsernameOrEmail("loginuser-" + suffix);
+        registerRequest.setEmail("login-" + suffix + "@example.com");
         registerRequest.setPassword("password123");
 
         log.info("📤 Registering user for login test - Username: {}, Email: {}", 
@@ -133,13 +145,11 @@ class AuthIntegrationTest extends BaseIntegrationTest {
 
         // Login with username
         AuthRequest loginRequest = new AuthRequest();
-        loginRequest.setUsernameOrEmail("loginuser");
+        loginRequest.setUsernameOrEmail("loginuser-" + suffix);
         loginRequest.setPassword("password123");
 
         log.info("🔐 Attempting login with username: {}", loginRequest.getUsernameOrEmail());
-        mockMvc.perform(post("/api/v1/auth/login")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(loginRequest)))
+        login(loginRequest)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accessToken").exists())
                 .andExpect(jsonPath("$.refreshToken").exists());
@@ -148,13 +158,14 @@ class AuthIntegrationTest extends BaseIntegrationTest {
     }
 
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     void shouldLoginWithEmail() throws Exception {
         log.info("▶ Starting test: shouldLoginWithEmail");
         
         // Register user first
         AuthRequest registerRequest = new AuthRequest();
-        registerRequest.setUsernameOrEmail("emailuser");
-        registerRequest.setEmail("emaillogin@example.com");
+        registerRequest.setUsernameOrEmail("emailuser-" + suffix);
+        registerRequest.setEmail("emaillogin-" + suffix + "@example.com");
         registerRequest.setPassword("password123");
 
         log.info("📤 Registering user for email login test - Username: {}, Email: {}", 
@@ -167,13 +178,11 @@ class AuthIntegrationTest extends BaseIntegrationTest {
 
         // Login with email
         AuthRequest loginRequest = new AuthRequest();
-        loginRequest.setUsernameOrEmail("emaillogin@example.com");
+        loginRequest.setUsernameOrEmail("emaillogin-" + suffix + "@example.com");
         loginRequest.setPassword("password123");
 
         log.info("🔐 Attempting login with email: {}", loginRequest.getUsernameOrEmail());
-        mockMvc.perform(post("/api/v1/auth/login")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(loginRequest)))
+        login(loginRequest)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accessToken").exists())
                 .andExpect(jsonPath("$.refreshToken").exists());
@@ -182,13 +191,14 @@ class AuthIntegrationTest extends BaseIntegrationTest {
     }
 
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     void shouldNotLoginWithInvalidPassword() throws Exception {
         log.info("▶ Starting test: shouldNotLoginWithInvalidPassword");
         
         // Register user first
         AuthRequest registerRequest = new AuthRequest();
-        registerRequest.setUsernameOrEmail("invaliduser");
-        registerRequest.setEmail("invalid@example.com");
+        registerRequest.setUsernameOrEmail("invaliduser-" + suffix);
+        registerRequest.setEmail("invalid-" + suffix + "@example.com");
         registerRequest.setPassword("password123");
 
         log.info("📤 Registering user for invalid password test - Username: {}, Email: {}", 
@@ -201,18 +211,26 @@ class AuthIntegrationTest extends BaseIntegrationTest {
 
         // Try to login with wrong password
         AuthRequest loginRequest = new AuthRequest();
-        loginRequest.setUsernameOrEmail("invaliduser");
+        loginRequest.setUsernameOrEmail("invaliduser-" + suffix);
         loginRequest.setPassword("wrongpassword");
 
         log.info("🔐 Attempting login with invalid password - Username: {}", loginRequest.getUsernameOrEmail());
-        mockMvc.perform(post("/api/v1/auth/login")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(loginRequest)))
+        login(loginRequest)
                 .andExpect(status().isUnauthorized());
         log.info("✅ Login correctly rejected with Unauthorized status");
         log.info("✅ Test passed: shouldNotLoginWithInvalidPassword");
     }
 
+    /** Performs a login and dispatches its asynchronous result. */
+    private ResultActions login(AuthRequest loginRequest) throws Exception {
+        MvcResult pending = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(pending));
+    }
+
     @Test
     void shouldRefreshAccessToken() throws Exception {
         log.info("▶ Starting test: shouldRefreshAccessToken");
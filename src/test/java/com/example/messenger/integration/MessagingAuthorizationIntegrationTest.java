@@ -2,16 +2,20 @@ package com.example.messenger.integration;
 
 import com.example.messenger.dto.AuthRequest;
 import com.example.messenger.dto.AuthResponse;
+import com.example.messenger.repository.EventRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +37,9 @@ class MessagingAuthorizationIntegrationTest {
     @LocalServerPort
     private int port;
 
+    @Autowired
+    private EventRepository eventRepository;
+
     private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -131,6 +138,77 @@ class MessagingAuthorizationIntegrationTest {
         assertEquals(401, sendEx.getStatusCode().value());
     }
 
+    @Test
+    void retriedCreateConversationWithIdempotencyKey_returnsSameConversation() throws Exception {
+        AuthResponse owner = registerAndGetAuth("idem_owner");
+        AuthResponse member = registerAndGetAuth("idem_member");
+        HttpHeaders headers = authorizedJsonHeaders(owner.getAccessToken());
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+        String body = "{\"type\":\"GROUP\",\"name\":\"Retry\",\"participantIds\":["
+                + owner.getUserId() + "," + member.getUserId() + "," + member.getUserId() + "]}";
+
+        long first = createConversation(body, headers);
+        long retry = createConversation(body, headers);
+
+        assertEquals(first, retry);
+        ResponseEntity<String> list = restTemplate.exchange(
+                url("/api/v1/conversations"),
+                HttpMethod.GET,
+                new HttpEntity<>(authorizedJsonHeaders(owner.getAccessToken())),
+                String.class
+        );
+        assertEquals(1, objectMapper.readTree(list.getBody()).size());
+    }
+
+    @Test
+    void addAndRemoveParticipants_recordOneMembershipEventPerRequest() throws Exception {
+        AuthResponse owner = registerAndGetAuth("bulk_owner");
+        AuthResponse first = registerAndGetAuth("bulk_first");
+        AuthResponse second = registerAndGetAuth("bulk_second");
+        long conversationId = createConversation("{\"type\":\"GROUP\",\"name\":\"Bulk\",\"participantIds\":["
+                + owner.getUserId() + "]}", authorizedJsonHeaders(owner.getAccessToken()));
+        String participants = "{\"userIds\":[" + first.getUserId() + "," + second.getUserId() + "]}";
+
+        ResponseEntity<String> added = participantsRequest(conversationId, HttpMethod.POST, participants, owner);
+        assertEquals(200, added.getStatusCode().value());
+        assertEquals(2, objectMapper.readTree(added.getBody()).get("added").size());
+        assertEquals(1, membershipEvents(conversationId));
+
+        ResponseEntity<String> removed = participantsRequest(conversationId, HttpMethod.DELETE, participants, owner);
+        assertEquals(200, removed.getStatusCode().value());
+        assertEquals(2, objectMapper.readTree(removed.getBody()).get("removed").size());
+        assertEquals(2, membershipEvents(conversationId));
+    }
+
+    private ResponseEntity<String> participantsRequest(long conversationId, HttpMethod method, String body,
+                                                       AuthResponse auth) {
+        // the JDK client sends a body with DELETE
+        return new RestTemplate(new JdkClientHttpRequestFactory()).exchange(
+                url("/api/v1/conversations/" + conversationId + "/participants"),
+                method,
+                new HttpEntity<>(body, authorizedJsonHeaders(auth.getAccessToken())),
+                String.class
+        );
+    }
+
+    private long membershipEvents(long conversationId) {
+        return eventRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc(conversationId, 0L, PageRequest.of(0, 100))
+                .stream()
+                .filter(event -> "membership".equals(event.getType()))
+                .count();
+    }
+
+    private long createConversation(String body, HttpHeaders headers) throws Exception {
+        ResponseEntity<String> response = restTemplate.exchange(
+                url("/api/v1/conversations"),
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                String.class
+        );
+        assertEquals(201, response.getStatusCode().value());
+        return objectMapper.readTree(response.getBody()).get("id").asLong();
+    }
+
     private AuthResponse registerAndGetAuth(String prefix) throws Exception {
         String suffix = UUID.randomUUID().toString().substring(0, 8);
         String username = prefix + "_" + suffix;
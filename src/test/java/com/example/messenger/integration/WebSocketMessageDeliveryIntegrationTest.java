@@ -123,6 +123,8 @@ class WebSocketMessageDeliveryIntegrationTest {
         var eventNode = objectMapper.readTree(raw);
         assertEquals("message", eventNode.get("type").asText());
         assertEquals(conversationId, eventNode.get("conversationId").asLong());
+        // default (messenger.v1.json) frames carry the payload as a JSON string
+        assertTrue(eventNode.get("payload").isTextual(), "payload should be a JSON string without a subprotocol");
         var payload = objectMapper.readTree(eventNode.get("payload").asText());
         assertEquals(body, payload.get("body").asText());
         assertEquals(senderAuth.getUserId(), payload.get("senderId").asLong());
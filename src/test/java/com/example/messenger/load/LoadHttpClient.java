@@ -0,0 +1,86 @@
+package com.example.messenger.load;
+
+import com.example.messenger.dto.AuthRequest;
+import com.example.messenger.dto.AuthResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * REST calls shared by the load tests: register users, create conversations, send messages, and
+ * write result files to {@code load.resultsDir}.
+ */
+class LoadHttpClient {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadHttpClient.class);
+
+    private final String baseUrl;
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    LoadHttpClient(int port) {
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    AuthResponse register(String prefix) throws Exception {
+        String username = prefix + "_" + UUID.randomUUID().toString().substring(0, 8);
+        AuthRequest request = new AuthRequest();
+        request.setUsernameOrEmail(username);
+        request.setEmail(username + "@load.test");
+        request.setPassword("password123");
+        ResponseEntity<String> resp = post("/api/v1/auth/register", objectMapper.writeValueAsString(request), null);
+        return objectMapper.readValue(resp.getBody(), AuthResponse.class);
+    }
+
+    Long createOneToOne(AuthResponse a, AuthResponse b) throws Exception {
+        return createConversation("ONE_TO_ONE", a.getAccessToken(), List.of(a.getUserId(), b.getUserId()));
+    }
+
+    Long createGroup(List<AuthResponse> members) throws Exception {
+        List<Long> ids = members.stream().map(AuthResponse::getUserId).toList();
+        return createConversation("GROUP", members.get(0).getAccessToken(), ids);
+    }
+
+    private Long createConversation(String type, String token, List<Long> participantIds) throws Exception {
+        String ids = participantIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        String body = "{\"type\":\"" + type + "\",\"participantIds\":[" + ids + "]}";
+        ResponseEntity<String> resp = post("/api/v1/conversations", body, token);
+        return objectMapper.readTree(resp.getBody()).get("id").asLong();
+    }
+
+    ResponseEntity<String> sendMessage(String token, Long conversationId, String body) throws Exception {
+        return post("/api/v1/conversations/" + conversationId + "/messages",
+                objectMapper.writeValueAsString(Map.of("body", body)), token);
+    }
+
+    ResponseEntity<String> post(String path, String body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (token != null) {
+            headers.setBearerAuth(token);
+        }
+        return restTemplate.exchange(baseUrl + path, HttpMethod.POST, new HttpEntity<>(body, headers), String.class);
+    }
+
+    /** Writes {@code result} as pretty JSON to {@code <load.resultsDir>/<name>.json}. */
+    void writeResult(String name, Map<String, Object> result) throws Exception {
+        File dir = new File(System.getProperty("load.resultsDir", "build/load-results"));
+        if (!dir.exists() && !dir.mkdirs()) {
+            log.warn("Could not create {}", dir);
+            return;
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(dir, name + ".json"), result);
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.messenger.load;
+
+import com.example.messenger.TestConfig;
+import com.example.messenger.dto.AuthResponse;
+import com.example.messenger.websocket.EventWireFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end messaging load: thousands of authenticated WebSocket clients on {@code /api/v1/events},
+ * messages sent over REST at a fixed rate into 1:1 and group conversations, and send-to-receive
+ * latency measured at every recipient.
+ *
+ * <p>Each message body carries the {@code System.nanoTime()} at which its send was scheduled; clients
+ * run in the same JVM, so a recipient computes delivery latency directly from the event payload. Sends
+ * are scheduled open-loop at {@code load.rate} per second and both histograms start at the scheduled
+ * time, not when a sender thread picks the send up, so a slow server shows up as latency (including
+ * time queued for a sender thread) rather than as a lower send rate. Results (p50/p99/p999 for delivery and REST send, throughput, delivered/expected)
+ * are logged and written to {@code build/load-results/messaging-load.json}.
+ *
+ * <p>Settings (system properties, forwarded by {@code ./gradlew loadTest}):
+ * <ul>
+ *   <li>{@code load.clients} (2000) — users, each with one WebSocket connection</li>
+ *   <li>{@code load.groupSize} (50) and {@code load.groupUserShare} (0.5) — share of users placed in groups;
+ *       the rest are paired into 1:1 conversations</li>
+ *   <li>{@code load.groupTrafficShare} (0.5) — share of sends that go to a group</li>
+ *   <li>{@code load.rate} (200) messages/s for {@code load.durationSeconds} (30), from {@code load.senderThreads} (64)</li>
+ * </ul>
+ * Runs on H2 by default; pass {@code -Dspring.datasource.url=...} (plus username/password/driver and
+ * {@code -Dspring.jpa.properties.hibernate.dialect=...}) to run against PostgreSQL.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class MessagingLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MessagingLoadTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 2000);
+    private static final int GROUP_SIZE = Integer.getInteger("load.groupSize", 50);
+    private static final double GROUP_USER_SHARE = Double.parseDouble(System.getProperty("load.groupUserShare", "0.5"));
+    private static final double GROUP_TRAFFIC_SHARE = Double.parseDouble(System.getProperty("load.groupTrafficShare", "0.5"));
+    private static final int RATE = Integer.getInteger("load.rate", 200);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.durationSeconds", 30);
+    private static final int SENDER_THREADS = Integer.getInteger("load.senderThreads", 64);
+    private static final long DRAIN_TIMEOUT_MS = 30_000;
+    private static final String BODY_PREFIX = "lt:";
+
+    @LocalServerPort
+    private int port;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Histogram deliveryMicros = new ConcurrentHistogram(3);
+    private final Histogram sendMicros = new ConcurrentHistogram(3);
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong expected = new AtomicLong();
+    private final AtomicLong sendFailures = new AtomicLong();
+
+    /** A conversation and how many connected members receive each message sent to it. */
+    private record Target(Long conversationId, List<AuthResponse> members) {}
+
+    @Test
+    void deliverMessagesAtConfiguredRate() throws Exception {
+        LoadHttpClient http = new LoadHttpClient(port);
+        List<AuthResponse> users = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            users.add(http.register("ml" + i));
+        }
+
+        int groupUsers = (int) (CLIENTS * GROUP_USER_SHARE) / GROUP_SIZE * GROUP_SIZE;
+        List<Target> groups = new ArrayList<>();
+        for (int i = 0; i + GROUP_SIZE <= groupUsers; i += GROUP_SIZE) {
+            List<AuthResponse> members = users.subList(i, i + GROUP_SIZE);
+            groups.add(new Target(http.createGroup(members), members));
+        }
+        List<Target> pairs = new ArrayList<>();
+        for (int i = groupUsers; i + 1 < users.size(); i += 2) {
+            List<AuthResponse> members = users.subList(i, i + 2);
+            pairs.add(new Target(http.createOneToOne(members.get(0), members.get(1)), members));
+        }
+        log.info("Created {} groups of {} and {} 1:1 conversations", groups.size(), GROUP_SIZE, pairs.size());
+
+        List<WebSocketSession> sessions = connect(users);
+        try {
+            long startNanos = System.nanoTime();
+            long sent = sendAtRate(http, groups, pairs);
+            long sendSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos));
+            awaitDeliveries();
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("clients", CLIENTS);
+            result.put("connected", sessions.size());
+            result.put("groups", groups.size());
+            result.put("groupSize", GROUP_SIZE);
+            result.put("oneToOne", pairs.size());
+            result.put("targetRate", RATE);
+            result.put("sent", sent);
+            result.put("sendFailures", sendFailures.get());
+            result.put("sendThroughputPerSec", sent / (double) sendSeconds);
+            result.put("expectedDeliveries", expected.get());
+            result.put("delivered", delivered.get());
+            result.put("deliveryThroughputPerSec", delivered.get() / elapsedSeconds);
+            result.put("delivery", percentiles(deliveryMicros));
+            result.put("send", percentiles(sendMicros));
+            log.info("Messaging load result: {}", result);
+            http.writeResult("messaging-load", result);
+
+            assertTrue(sent > 0, "messages should be sent");
+            assertTrue(delivered.get() > 0, "events should be delivered");
+        } finally {
+            for (WebSocketSession session : sessions) {
+                if (session.isOpen()) {
+                    session.close();
+                }
+            }
+        }
+    }
+
+    private List<WebSocketSession> connect(List<AuthResponse> users) {
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        TextWebSocketHandler handler = new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+                recordDelivery(message.getPayload());
+            }
+        };
+        // payload as a nested object, so recordDelivery reads the body without a second parse
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setSecWebSocketProtocol(EventWireFormat.JSON_V2.getSubprotocol());
+        List<WebSocketSession> sessions = new ArrayList<>();
+        for (AuthResponse user : users) {
+            try {
+                sessions.add(client.execute(handler, headers,
+                        URI.create("ws://localhost:" + port + "/api/v1/events?token=" + user.getAccessToken()))
+                        .get(10, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to connect client " + sessions.size() + " of " + users.size(), e);
+            }
+        }
+        log.info("Connected {} WebSocket clients", sessions.size());
+        return sessions;
+    }
+
+    private void recordDelivery(String frame) throws Exception {
+        long now = System.nanoTime();
+        JsonNode event = objectMapper.readTree(frame);
+        if (!"message".equals(event.path("type").asText())) {
+            return;
+        }
+        String body = event.path("payload").path("body").asText();
+        if (!body.startsWith(BODY_PREFIX)) {
+            return;
+        }
+        long sentNanos = Long.parseLong(body.substring(BODY_PREFIX.length(), body.indexOf(':', BODY_PREFIX.length())));
+        deliveryMicros.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(now - sentNanos)));
+        delivered.incrementAndGet();
+    }
+
+    /** Dispatches sends open-loop at the configured rate; returns the number of messages sent. */
+    private long sendAtRate(LoadHttpClient http, List<Target> groups, List<Target> pairs) throws InterruptedException {
+        ExecutorService senders = Executors.newFixedThreadPool(SENDER_THREADS);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long total = (long) RATE * DURATION_SECONDS;
+        long next = System.nanoTime();
+        AtomicLong sent = new AtomicLong();
+        try {
+            for (long n = 0; n < total; n++) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                // latency is measured from when the send was due, so time spent queued behind a slow
+                // server is counted rather than omitted
+                long scheduled = next;
+                next += intervalNanos;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                boolean toGroup = !groups.isEmpty() && (pairs.isEmpty() || random.nextDouble() < GROUP_TRAFFIC_SHARE);
+                List<Target> pool = toGroup ? groups : pairs;
+                Target target = pool.get(random.nextInt(pool.size()));
+                AuthResponse sender = target.members().get(random.nextInt(target.members().size()));
+                long seq = n;
+                senders.execute(() -> send(http, target, sender, seq, scheduled, sent));
+            }
+        } finally {
+            senders.shutdown();
+            senders.awaitTermination(2, TimeUnit.MINUTES);
+        }
+        return sent.get();
+    }
+
+    private void send(LoadHttpClient http, Target target, AuthResponse sender, long seq, long start, AtomicLong sent) {
+        expected.addAndGet(target.members().size());
+        try {
+            if (http.sendMessage(sender.getAccessToken(), target.conversationId(), BODY_PREFIX + start + ":" + seq)
+                    .getStatusCode().is2xxSuccessful()) {
+                sendMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                sent.incrementAndGet();
+                return;
+            }
+        } catch (Exception e) {
+            log.debug("Send {} failed: {}", seq, e.toString());
+        }
+        expected.addAndGet(-target.members().size());
+        sendFailures.incrementAndGet();
+    }
+
+    private void awaitDeliveries() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        while (delivered.get() < expected.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        if (delivered.get() < expected.get()) {
+            log.warn("Delivered {} of {} expected events before drain timeout", delivered.get(), expected.get());
+        }
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> p = new LinkedHashMap<>();
+        p.put("count", histogram.getTotalCount());
+        p.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+        p.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+        p.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1000.0);
+        p.put("maxMs", histogram.getMaxValue() / 1000.0);
+        return p;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.messenger.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+/** Baseline: Tomcat's platform thread pool, fan-out inline on the request thread. */
+@TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+class PlatformThreadsLoadTest extends ThreadingModeLoadTest {
+
+    @Override
+    protected String mode() {
+        return "platform";
+    }
+}
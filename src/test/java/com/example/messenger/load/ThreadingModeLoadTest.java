@@ -0,0 +1,159 @@
+package com.example.messenger.load;
+
+import com.example.messenger.TestConfig;
+import com.example.messenger.dto.AuthResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares platform-thread and virtual-thread request handling under the same workload.
+ *
+ * <p>Each subclass boots the application in one threading mode, opens as many concurrent
+ * WebSocket connections as it can (up to {@code load.connections}) and then fires
+ * {@code load.messages} REST sends from {@code load.concurrency} client threads while those
+ * connections stay open. p50/p99 send latency and the number of connections held are logged and
+ * written to {@code build/load-results/threading-<mode>.json} for side-by-side comparison.
+ *
+ * <p>Tagged {@code load}; run with {@code ./gradlew loadTest -PjavaVersion=21} (the virtual-thread
+ * variant is skipped on older JVMs).
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+abstract class ThreadingModeLoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 100);
+    private static final int CONNECTIONS = Integer.getInteger("load.connections", 1000);
+    private static final int MESSAGES = Integer.getInteger("load.messages", 2000);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 64);
+
+    protected final Logger log = LoggerFactory.getLogger(getClass());
+
+    @LocalServerPort
+    private int port;
+
+    private LoadHttpClient http;
+
+    /** Short name of the threading mode under test, used in logs and result files. */
+    protected abstract String mode();
+
+    @Test
+    void measureSendLatencyAndConnectionCapacity() throws Exception {
+        http = new LoadHttpClient(port);
+        List<AuthResponse> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(http.register("load" + i));
+        }
+        List<Long> conversations = new ArrayList<>();
+        for (int i = 0; i + 1 < users.size(); i += 2) {
+            conversations.add(http.createOneToOne(users.get(i), users.get(i + 1)));
+        }
+
+        List<WebSocketSession> sessions = openConnections(users);
+        try {
+            long[] latenciesNanos = sendMessages(users, conversations);
+            Arrays.sort(latenciesNanos);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("mode", mode());
+            result.put("connections", sessions.size());
+            result.put("messages", latenciesNanos.length);
+            result.put("concurrency", CONCURRENCY);
+            result.put("p50Ms", percentileMillis(latenciesNanos, 0.50));
+            result.put("p99Ms", percentileMillis(latenciesNanos, 0.99));
+            result.put("maxMs", percentileMillis(latenciesNanos, 1.0));
+            log.info("Load result: {}", result);
+            http.writeResult("threading-" + mode(), result);
+
+            assertEquals(MESSAGES, latenciesNanos.length, "every send should succeed");
+            assertTrue(sessions.size() > 0, "at least one WebSocket connection should open");
+        } finally {
+            for (WebSocketSession session : sessions) {
+                if (session.isOpen()) {
+                    session.close();
+                }
+            }
+        }
+    }
+
+    private List<WebSocketSession> openConnections(List<AuthResponse> users) {
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        List<WebSocketSession> sessions = new ArrayList<>();
+        for (int i = 0; i < CONNECTIONS; i++) {
+            String token = users.get(i % users.size()).getAccessToken();
+            try {
+                sessions.add(client.execute(new TextWebSocketHandler() {}, new WebSocketHttpHeaders(),
+                        URI.create("ws://localhost:" + port + "/api/v1/events?token=" + token)).get(10, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                log.warn("Connection {} failed, stopping at {} open connections: {}", i, sessions.size(), e.toString());
+                break;
+            }
+        }
+        return sessions;
+    }
+
+    private long[] sendMessages(List<AuthResponse> users, List<Long> conversations) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        AtomicInteger completed = new AtomicInteger();
+        long[] latencies = new long[MESSAGES];
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < MESSAGES; i++) {
+                int n = i;
+                futures.add(clients.submit(() -> {
+                    int pair = n % conversations.size();
+                    AuthResponse sender = users.get(pair * 2);
+                    long start = System.nanoTime();
+                    ResponseEntity<String> resp = http.sendMessage(sender.getAccessToken(), conversations.get(pair),
+                            "load message " + n);
+                    if (resp.getStatusCode().is2xxSuccessful()) {
+                        latencies[completed.getAndIncrement()] = System.nanoTime() - start;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        return Arrays.copyOf(latencies, completed.get());
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1_000_000.0;
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.example.messenger.load;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.TestPropertySource;
+
+/** Virtual-thread mode: requests, WebSocket fan-out and login on virtual threads (Java 21+). */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsLoadTest extends ThreadingModeLoadTest {
+
+    @Override
+    protected String mode() {
+        return "virtual";
+    }
+}
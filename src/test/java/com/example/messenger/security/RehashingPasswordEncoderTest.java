@@ -0,0 +1,70 @@
+package com.example.messenger.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RehashingPasswordEncoderTest {
+
+    private static RehashingPasswordEncoder bcrypt(int strength) {
+        return new RehashingPasswordEncoder("bcrypt", strength, 16, 32, 1, 1024, 1);
+    }
+
+    private static RehashingPasswordEncoder argon2(int memoryKb) {
+        return new RehashingPasswordEncoder("argon2", 4, 16, 32, 1, memoryKb, 1);
+    }
+
+    @Test
+    void encode_prefixesHashWithAlgorithmIdAndMatches() {
+        RehashingPasswordEncoder encoder = bcrypt(4);
+
+        String hash = encoder.encode("password123");
+
+        assertTrue(hash.startsWith("{bcrypt}$2a$04$"));
+        assertTrue(encoder.matches("password123", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void legacyUnprefixedBcryptHash_matchesAndNeedsUpgrade() {
+        String legacy = new BCryptPasswordEncoder(4).encode("password123");
+        RehashingPasswordEncoder encoder = bcrypt(4);
+
+        assertTrue(encoder.matches("password123", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    void upgradeEncoding_detectsHigherAndLowerBcryptCost() {
+        String cost5 = bcrypt(5).encode("password123");
+
+        assertTrue(bcrypt(4).upgradeEncoding(cost5), "lowering the cost should re-hash");
+        assertTrue(bcrypt(6).upgradeEncoding(cost5), "raising the cost should re-hash");
+        assertFalse(bcrypt(5).upgradeEncoding(cost5));
+    }
+
+    @Test
+    void argon2_verifiesBcryptHashesAndRehashesThem() {
+        String bcryptHash = bcrypt(4).encode("password123");
+        RehashingPasswordEncoder encoder = argon2(1024);
+
+        assertTrue(encoder.matches("password123", bcryptHash));
+        assertTrue(encoder.upgradeEncoding(bcryptHash));
+
+        String argonHash = encoder.encode("password123");
+        assertTrue(argonHash.startsWith("{argon2}$argon2id$"));
+        assertTrue(encoder.matches("password123", argonHash));
+        assertFalse(encoder.upgradeEncoding(argonHash));
+        assertTrue(argon2(2048).upgradeEncoding(argonHash));
+    }
+
+    @Test
+    void constructor_rejectsUnknownEncoder() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new RehashingPasswordEncoder("md5", 4, 16, 32, 1, 1024, 1));
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.messenger.service;
 
+import com.example.messenger.config.PasswordHashingConfig;
 import com.example.messenger.domain.AppUser;
 import com.example.messenger.domain.RefreshToken;
 import com.example.messenger.dto.AuthRequest;
@@ -10,7 +11,6 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
@@ -22,7 +22,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.lang.reflect.Field;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -52,7 +55,6 @@ class AuthServiceTest {
     @Mock
     private Authentication authentication;
 
-    @InjectMocks
     private AuthService authService;
 
     private AppUser testUser;
@@ -61,6 +63,9 @@ class AuthServiceTest {
     void setUp() throws Exception {
         log.info("═══════════════════════════════════════════════════════════");
         log.info("Setting up test: {}", getClass().getSimpleName());
+        // Run authentication inline instead of on the bounded auth pool
+        authService = new AuthService(appUserRepository, passwordEncoder, jwtTokenProvider,
+                tokenService, authenticationManager, Runnable::run, new PasswordHashingConfig());
         testUser = new AppUser("testuser", "test@example.com", "hashedPassword");
         // Set ID using reflection for testing purposes (ID is normally auto-generated by JPA)
         Field idField = AppUser.class.getDeclaredField("id");
@@ -194,4 +199,32 @@ class AuthServiceTest {
         log.info("✓ Verified: authenticationManager.authenticate was called");
         log.info("✅ Test passed: shouldLoginWithValidCredentials");
     }
+
+    @Test
+    void loginAsync_returnsBeforeAuthenticationRuns() {
+        // Given: an auth executor that only queues the work
+        List<Runnable> queued = new ArrayList<>();
+        AuthService asyncService = new AuthService(appUserRepository, passwordEncoder, jwtTokenProvider,
+                tokenService, authenticationManager, queued::add, new PasswordHashingConfig());
+        AuthRequest request = new AuthRequest();
+        request.setUsernameOrEmail("testuser");
+        request.setPassword("password123");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(testUser);
+        when(appUserRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(jwtTokenProvider.generateAccessToken(any())).thenReturn("accessToken");
+        when(tokenService.createRefreshToken(anyLong()))
+                .thenReturn(new RefreshToken(1L, "refreshToken", Instant.now().plusSeconds(3600)));
+
+        // When
+        CompletableFuture<AuthResponse> future = asyncService.loginAsync(request);
+
+        // Then: nothing ran on the calling thread; the queued task completes the future
+        assertFalse(future.isDone());
+        verifyNoInteractions(authenticationManager);
+        assertEquals(1, queued.size());
+        queued.get(0).run();
+        assertEquals("accessToken", future.join().getAccessToken());
+    }
 }
@@ -4,21 +4,32 @@ import com.example.messenger.domain.AppUser;
 import com.example.messenger.domain.Conversation;
 import com.example.messenger.domain.ConversationType;
 import com.example.messenger.domain.ParticipantRole;
+import com.example.messenger.dto.MessageEventPayload;
 import com.example.messenger.repository.ConversationRepository;
 import com.example.messenger.repository.EventRepository;
 import com.example.messenger.repository.AppUserRepository;
 import com.example.messenger.TestDataFactory;
 import com.example.messenger.TestConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Phase 1.4: EventService persists events and does not throw when no WebSocket sessions are registered.
@@ -41,6 +52,9 @@ class EventServiceTest {
     @Autowired
     private ConversationRepository conversationRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Test
     void publish_createsEventInDatabase() {
         AppUser userA = appUserRepository.save(TestDataFactory.createUser("alice"));
@@ -58,4 +72,107 @@ class EventServiceTest {
         assertEquals("message", events.get(0).getType());
         assertEquals("{\"id\":1,\"body\":\"hi\"}", events.get(0).getPayload());
     }
+
+    @Test
+    void publish_typedPayloadIsSerializedOnceAndSentAsStringByDefault() throws Exception {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("gina"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("hank"));
+        Conversation conv = new Conversation(ConversationType.ONE_TO_ONE, null);
+        conv.addParticipant(userA, ParticipantRole.MEMBER);
+        conv.addParticipant(userB, ParticipantRole.MEMBER);
+        conv = conversationRepository.save(conv);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s-hank");
+        when(session.isOpen()).thenReturn(true);
+        eventService.registerSession(userB.getId(), session);
+
+        try {
+            eventService.publish(conv.getId(), "message",
+                    new MessageEventPayload(5L, userA.getId(), "gina", "say \"hi\"", "2026-01-01T00:00:00Z"));
+
+            JsonNode stored = objectMapper.readTree(eventRepository.findAll().get(0).getPayload());
+            assertEquals("say \"hi\"", stored.get("body").asText());
+            ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+            verify(session).sendMessage(frame.capture());
+            // default format: the payload stays a JSON string
+            JsonNode payloadText = objectMapper.readTree(frame.getValue().getPayload()).get("payload");
+            assertTrue(payloadText.isTextual());
+            JsonNode payload = objectMapper.readTree(payloadText.asText());
+            assertEquals(5L, payload.get("id").asLong());
+            assertEquals("gina", payload.get("senderUsername").asText());
+        } finally {
+            eventService.unregisterSession(userB.getId(), session);
+        }
+    }
+
+    @Test
+    void publish_v2SubprotocolEmbedsPayloadAsObject() throws Exception {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("ivan"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("judy"));
+        Conversation conv = new Conversation(ConversationType.ONE_TO_ONE, null);
+        conv.addParticipant(userA, ParticipantRole.MEMBER);
+        conv.addParticipant(userB, ParticipantRole.MEMBER);
+        conv = conversationRepository.save(conv);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s-judy");
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAcceptedProtocol()).thenReturn("messenger.v2.json");
+        eventService.registerSession(userB.getId(), session);
+
+        try {
+            eventService.publish(conv.getId(), "message",
+                    new MessageEventPayload(6L, userA.getId(), "ivan", "say \"hi\"", "2026-01-01T00:00:00Z"));
+
+            ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+            verify(session).sendMessage(frame.capture());
+            JsonNode payload = objectMapper.readTree(frame.getValue().getPayload()).get("payload");
+            assertTrue(payload.isObject());
+            assertEquals(6L, payload.get("id").asLong());
+            assertEquals("say \"hi\"", payload.get("body").asText());
+        } finally {
+            eventService.unregisterSession(userB.getId(), session);
+        }
+    }
+
+    @Test
+    void publish_sendsFrameToRegisteredSessionThroughDecorator() throws Exception {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("carol"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("dave"));
+        Conversation conv = new Conversation(ConversationType.ONE_TO_ONE, null);
+        conv.addParticipant(userA, ParticipantRole.MEMBER);
+        conv.addParticipant(userB, ParticipantRole.MEMBER);
+        conv = conversationRepository.save(conv);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s-dave");
+        when(session.isOpen()).thenReturn(true);
+
+        eventService.registerSession(userB.getId(), session);
+        try {
+            eventService.publish(conv.getId(), "message", "{\"id\":2,\"body\":\"hey\"}");
+            verify(session).sendMessage(any(TextMessage.class));
+        } finally {
+            eventService.unregisterSession(userB.getId(), session);
+        }
+    }
+
+    @Test
+    void unregisterSession_stopsDelivery() throws Exception {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("erin"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("frank"));
+        Conversation conv = new Conversation(ConversationType.ONE_TO_ONE, null);
+        conv.addParticipant(userA, ParticipantRole.MEMBER);
+        conv.addParticipant(userB, ParticipantRole.MEMBER);
+        conv = conversationRepository.save(conv);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s-frank");
+        int before = eventService.getActiveConnectionCount();
+
+        eventService.registerSession(userB.getId(), session);
+        assertEquals(before + 1, eventService.getActiveConnectionCount());
+        eventService.unregisterSession(userB.getId(), session);
+        assertEquals(before, eventService.getActiveConnectionCount());
+
+        eventService.publish(conv.getId(), "message", "{}");
+        verify(session, never()).sendMessage(any(TextMessage.class));
+    }
 }
@@ -0,0 +1,46 @@
+package com.example.messenger.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyWindowTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void get_returnsStoredValueUntilWindowElapses() {
+        IdempotencyWindow<String, String> window = new IdempotencyWindow<>(100, 10, now::get);
+        window.put("k", "v");
+
+        now.addAndGet(99);
+        assertEquals("v", window.get("k"));
+
+        now.addAndGet(1);
+        assertNull(window.get("k"));
+        assertEquals(0, window.size());
+    }
+
+    @Test
+    void put_dropsOldestEntryWhenFull() {
+        IdempotencyWindow<String, String> window = new IdempotencyWindow<>(100, 2, now::get);
+        window.put("a", "1");
+        window.put("b", "2");
+        window.put("c", "3");
+
+        assertNull(window.get("a"));
+        assertEquals("2", window.get("b"));
+        assertEquals("3", window.get("c"));
+    }
+
+    @Test
+    void zeroWindow_storesNothing() {
+        IdempotencyWindow<String, String> window = new IdempotencyWindow<>(0, 10, now::get);
+        window.put("k", "v");
+
+        assertNull(window.get("k"));
+        assertEquals(0, window.size());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.messenger.service;
+
+import com.example.messenger.TestConfig;
+import com.example.messenger.TestDataFactory;
+import com.example.messenger.domain.AppUser;
+import com.example.messenger.domain.Conversation;
+import com.example.messenger.domain.Message;
+import com.example.messenger.repository.AppUserRepository;
+import com.example.messenger.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MessageCompactionService empties the bodies of deleted messages once and leaves visible messages alone.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@Transactional
+class MessageCompactionServiceTest {
+
+    @Autowired
+    private MessageCompactionService compactionService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Test
+    void compactBatches_scrubsOnlyDeletedBodies() {
+        AppUser alice = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser bob = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(alice.getId(), bob.getId());
+        Message kept = messageService.sendMessage(conv.getId(), alice.getId(), "keep me");
+        Message deleted = messageService.sendMessage(conv.getId(), alice.getId(), "delete me");
+        messageService.deleteMessage(conv.getId(), deleted.getId(), alice.getId());
+
+        assertEquals(1, compactionService.compactBatches());
+        assertEquals(0, compactionService.compactBatches());
+
+        Message scrubbed = messageRepository.findById(deleted.getId()).orElseThrow();
+        assertTrue(scrubbed.isDeleted());
+        assertEquals(0, scrubbed.getBody().length);
+        Message visible = messageRepository.findById(kept.getId()).orElseThrow();
+        assertEquals("keep me", messageService.toMessageView(visible).body());
+    }
+}
@@ -1,22 +1,44 @@
 package com.example.messenger.service;
 
+import com.example.messenger.crypto.AesGcmMessageCrypto;
+import com.example.messenger.crypto.SenderKeyChains;
 import com.example.messenger.domain.AppUser;
 import com.example.messenger.domain.Conversation;
 import com.example.messenger.domain.ConversationType;
+import com.example.messenger.domain.Event;
+import com.example.messenger.domain.Message;
 import com.example.messenger.domain.ParticipantRole;
+import com.example.messenger.dto.MembershipEventPayload;
+import com.example.messenger.exception.CustomException;
 import com.example.messenger.repository.AppUserRepository;
+import com.example.messenger.repository.EventRepository;
+import com.example.messenger.repository.MessageIdempotencyClaimRepository;
 import com.example.messenger.TestDataFactory;
 import com.example.messenger.TestConfig;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
+import static com.example.messenger.QueryCountAssertions.assertMaxStatements;
+import static com.example.messenger.QueryCountAssertions.countStatements;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests for MessageService with Phase 1.3 multi-user domain model.
@@ -35,6 +57,21 @@ class MessageServiceTest {
     @Autowired
     private AppUserRepository appUserRepository;
 
+    @Autowired
+    private AesGcmMessageCrypto crypto;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private MessageIdempotencyClaimRepository messageIdempotencyClaimRepository;
+
     @Test
     void createConversation_createsOneToOneWithTwoParticipants() {
         AppUser userA = appUserRepository.save(TestDataFactory.createUser("alice"));
@@ -82,6 +119,217 @@ class MessageServiceTest {
         assertEquals(1, messageService.listMessages(conv.getId()).size());
     }
 
+    @Test
+    void sendMessage_retryWithinWindowIssuesNoStatements() {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(userA.getId(), userB.getId());
+        String idempotencyKey = TestDataFactory.generateIdempotencyKey();
+        Message first = messageService.sendMessage(conv.getId(), userA.getId(), "Hello", idempotencyKey);
+
+        Message retry = assertMaxStatements(0,
+                () -> messageService.sendMessage(conv.getId(), userA.getId(), "Hello", idempotencyKey));
+
+        assertEquals(first.getId(), retry.getId());
+    }
+
+    @Test
+    void sendMessage_keyReusedByAnotherSenderIsRejected() {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(userA.getId(), userB.getId());
+        String idempotencyKey = TestDataFactory.generateIdempotencyKey();
+        messageService.sendMessage(conv.getId(), userA.getId(), "Hello", idempotencyKey);
+
+        assertThrows(CustomException.class,
+                () -> messageService.sendMessage(conv.getId(), userB.getId(), "Hi", idempotencyKey));
+
+        assertEquals(1, messageService.listMessages(conv.getId()).size());
+    }
+
+    @Test
+    void sendMessage_keyReusedAfterClaimPurgeResolvesToNewestMessage() {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(userA.getId(), userB.getId());
+        String idempotencyKey = TestDataFactory.generateIdempotencyKey();
+        messageService.sendMessage(conv.getId(), userA.getId(), "Hello", idempotencyKey);
+        messageIdempotencyClaimRepository.deleteBatchCreatedBefore(Instant.now().plusSeconds(60), 1000);
+        messageService.sendMessage(conv.getId(), userB.getId(), "Hi", idempotencyKey);
+
+        // two messages now carry the key; the lookup picks bob's rather than failing on two rows
+        assertThrows(CustomException.class,
+                () -> messageService.sendMessage(conv.getId(), userA.getId(), "Hello", idempotencyKey));
+
+        assertEquals(2, messageService.listMessages(conv.getId()).size());
+    }
+
+    @Test
+    void createGroupConversation_insertsFullGroupInBoundedStatements() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < Conversation.MAX_GROUP_MEMBERS; i++) {
+            ids.add(appUserRepository.save(TestDataFactory.createRandomUser()).getId());
+        }
+        ids.add(ids.get(1));
+
+        Conversation group = assertMaxStatements(6, () -> messageService.createGroupConversation("Big Group", ids));
+
+        assertEquals(Conversation.MAX_GROUP_MEMBERS, group.getParticipants().size());
+        assertEquals(ParticipantRole.OWNER, group.getParticipants().get(0).getRole());
+        assertEquals(ids.get(0), group.getParticipants().get(0).getUser().getId());
+        assertTrue(group.getParticipants().stream().allMatch(p -> p.getId() != null));
+    }
+
+    @Test
+    void createGroupConversation_rejectsUnknownUser() {
+        AppUser owner = appUserRepository.save(TestDataFactory.createUser("owner"));
+
+        assertThrows(CustomException.class,
+                () -> messageService.createGroupConversation("Group", List.of(owner.getId(), Long.MAX_VALUE)));
+    }
+
+    @Test
+    void addParticipantToConversation_isIdempotent() {
+        AppUser owner = appUserRepository.save(TestDataFactory.createUser("owner"));
+        AppUser member = appUserRepository.save(TestDataFactory.createUser("member"));
+        Conversation group = messageService.createGroupConversation("Test Group", owner.getId());
+        messageService.addParticipantToConversation(group.getId(), member.getId(), ParticipantRole.MEMBER);
+
+        Conversation retried = assertMaxStatements(2, () ->
+                messageService.addParticipantToConversation(group.getId(), member.getId(), ParticipantRole.MEMBER));
+
+        assertEquals(2, retried.getParticipants().size());
+    }
+
+    @Test
+    void addParticipants_insertsNewMembersInOneBatchAndSkipsExisting() {
+        List<Long> ids = createUsers(3);
+        Conversation group = messageService.createGroupConversation("Group", ids);
+        List<Long> newcomers = createUsers(10);
+        List<Long> requested = new ArrayList<>(newcomers);
+        requested.add(ids.get(1));
+
+        MembershipEventPayload change = assertMaxStatements(8,
+                () -> messageService.addParticipants(group.getId(), ids.get(0), requested));
+
+        assertEquals(newcomers, change.added());
+        assertEquals(13, change.memberCount());
+        MembershipEventPayload retry = messageService.addParticipants(group.getId(), ids.get(0), requested);
+        assertTrue(retry.added().isEmpty());
+        assertEquals(13, retry.memberCount());
+    }
+
+    @Test
+    void addParticipants_rejectsChangesBeyondMemberLimit() {
+        List<Long> ids = createUsers(Conversation.MAX_GROUP_MEMBERS - 1);
+        Conversation group = messageService.createGroupConversation("Group", ids);
+
+        assertThrows(CustomException.class,
+                () -> messageService.addParticipants(group.getId(), ids.get(0), createUsers(2)));
+    }
+
+    @Test
+    void addParticipants_requiresOwnerOrAdmin() {
+        List<Long> ids = createUsers(2);
+        Conversation group = messageService.createGroupConversation("Group", ids);
+
+        assertThrows(CustomException.class,
+                () -> messageService.addParticipants(group.getId(), ids.get(1), createUsers(1)));
+    }
+
+    @Test
+    void removeParticipants_removesMembersAndRotatesSenderKeys() {
+        List<Long> ids = createUsers(4);
+        Conversation group = messageService.createGroupConversation("Group", ids);
+
+        assertThrows(CustomException.class,
+                () -> messageService.removeParticipants(group.getId(), ids.get(1), List.of(ids.get(2))));
+        MembershipEventPayload selfRemoval = messageService.removeParticipants(group.getId(), ids.get(3), List.of(ids.get(3)));
+        MembershipEventPayload change = messageService.removeParticipants(group.getId(), ids.get(0), List.of(ids.get(1), ids.get(2)));
+
+        assertEquals(List.of(ids.get(3)), selfRemoval.removed());
+        assertEquals(List.of(ids.get(1), ids.get(2)), change.removed());
+        assertEquals(1, change.memberCount());
+        assertEquals(2, change.senderKeyEpoch());
+        assertThrows(CustomException.class,
+                () -> messageService.sendMessage(group.getId(), ids.get(1), "still here?"));
+    }
+
+    @Test
+    void removeParticipants_deliversOneMembershipEventToRemainingAndRemovedMembers() throws Exception {
+        List<Long> ids = createUsers(3);
+        Conversation group = messageService.createGroupConversation("Group", ids);
+        WebSocketSession remaining = mock(WebSocketSession.class);
+        when(remaining.getId()).thenReturn("s-remaining-" + ids.get(0));
+        when(remaining.isOpen()).thenReturn(true);
+        WebSocketSession removed = mock(WebSocketSession.class);
+        when(removed.getId()).thenReturn("s-removed-" + ids.get(2));
+        when(removed.isOpen()).thenReturn(true);
+        eventService.registerSession(ids.get(0), remaining);
+        eventService.registerSession(ids.get(2), removed);
+        try {
+            messageService.removeParticipants(group.getId(), ids.get(0), List.of(ids.get(2)));
+
+            ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+            verify(removed, times(1)).sendMessage(frame.capture());
+            assertTrue(frame.getValue().getPayload().contains("\"membership\""));
+            verify(remaining, times(1)).sendMessage(any(TextMessage.class));
+        } finally {
+            eventService.unregisterSession(ids.get(0), remaining);
+            eventService.unregisterSession(ids.get(2), removed);
+        }
+    }
+
+    private List<Long> createUsers(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(appUserRepository.save(TestDataFactory.createRandomUser()).getId());
+        }
+        return ids;
+    }
+
+    @Test
+    void deleteMessage_hidesMessageFromHistoryAndIsIdempotent() {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(userA.getId(), userB.getId());
+        Message first = messageService.sendMessage(conv.getId(), userA.getId(), "first");
+        Message second = messageService.sendMessage(conv.getId(), userA.getId(), "second");
+        messageService.sendMessage(conv.getId(), userB.getId(), "third");
+
+        assertThrows(CustomException.class,
+                () -> messageService.deleteMessage(conv.getId(), second.getId(), userB.getId()));
+        messageService.deleteMessage(conv.getId(), second.getId(), userA.getId());
+        messageService.deleteMessage(conv.getId(), second.getId(), userA.getId());
+
+        MessageService.MessageListPage page = messageService.listMessages(conv.getId(), first.getId(), 10);
+        assertEquals(List.of("third"), page.messages().stream().map(MessageService.MessageView::body).toList());
+        assertEquals(2, messageService.listMessages(conv.getId()).size());
+    }
+
+    @Test
+    void deleteMessage_redactsBodyFromResumedEvents() {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(userA.getId(), userB.getId());
+        Message message = messageService.sendMessage(conv.getId(), userA.getId(), "regrettable secret");
+
+        messageService.deleteMessage(conv.getId(), message.getId(), userA.getId());
+
+        List<Event> resumed = eventRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc(
+                conv.getId(), 0L, PageRequest.of(0, 100));
+        assertTrue(resumed.stream().anyMatch(e -> "message".equals(e.getType()) && message.getId().equals(e.getMessageId())));
+        assertTrue(resumed.stream().anyMatch(e -> "message_deleted".equals(e.getType())));
+        assertTrue(resumed.stream().noneMatch(e -> e.getPayload().contains("regrettable secret")));
+    }
+
+    @Test
+    void createConversation_rejectsSameUserTwice() {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("alice"));
+
+        assertThrows(CustomException.class, () -> messageService.createConversation(userA.getId(), userA.getId()));
+    }
+
     @Test
     void addParticipantToConversation_throwsWhenGroupAlreadyHasMaxMembers() {
         AppUser owner = appUserRepository.save(TestDataFactory.createUser("owner"));
@@ -134,4 +382,100 @@ class MessageServiceTest {
         MessageService.MessageListPage page = messageService.listMessages(conv.getId(), null, 2);
         assertEquals(2, page.messages().size());
     }
+
+    @Test
+    void listMessages_pageIssuesConstantStatementCountRegardlessOfMessageCount() {
+        AppUser owner = appUserRepository.save(TestDataFactory.createRandomUser());
+        Conversation group = messageService.createGroupConversation("Senders", owner.getId());
+        List<Long> senders = new ArrayList<>(List.of(owner.getId()));
+        for (int i = 1; i < 10; i++) {
+            AppUser member = appUserRepository.save(TestDataFactory.createRandomUser());
+            messageService.addParticipantToConversation(group.getId(), member.getId(), ParticipantRole.MEMBER);
+            senders.add(member.getId());
+        }
+        for (int i = 0; i < senders.size(); i++) {
+            messageService.sendMessage(group.getId(), senders.get(i), "msg-" + i);
+        }
+        // start from an empty persistence context so senders and conversations are not already loaded
+        entityManager.flush();
+        entityManager.clear();
+
+        long smallPage = countStatements(() -> messageService.listMessages(group.getId(), null, 2));
+        entityManager.clear();
+        long fullPage = countStatements(() -> assertEquals(10,
+                messageService.listMessages(group.getId(), null, 10).messages().size()));
+
+        assertEquals(smallPage, fullPage, "statements for a 2-message page and a 10-message page");
+        assertTrue(fullPage <= 3, "Expected at most 3 JDBC statements but " + fullPage + " were executed");
+    }
+
+    @Test
+    void sendMessage_issuesBoundedStatementCount() {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(userA.getId(), userB.getId());
+
+        assertMaxStatements(8, () -> messageService.sendMessage(conv.getId(), userA.getId(), "hello"));
+    }
+
+    @Test
+    void sendMessage_groupCryptoWorkIsIndependentOfGroupSize() {
+        for (int groupSize : new int[] {2, Conversation.MAX_GROUP_MEMBERS}) {
+            AppUser owner = appUserRepository.save(TestDataFactory.createRandomUser());
+            Conversation group = messageService.createGroupConversation("Group " + groupSize, owner.getId());
+            for (int i = 1; i < groupSize; i++) {
+                AppUser member = appUserRepository.save(TestDataFactory.createRandomUser());
+                messageService.addParticipantToConversation(group.getId(), member.getId(), ParticipantRole.MEMBER);
+            }
+            SenderKeyChains chains = crypto.senderKeys();
+            long chainsBefore = chains.chainDerivations();
+            long messageKeysBefore = chains.messageKeyDerivations();
+
+            for (int i = 0; i < 5; i++) {
+                messageService.sendMessage(group.getId(), owner.getId(), "hello " + i);
+            }
+
+            assertEquals(1, chains.chainDerivations() - chainsBefore, "one sender chain per (sender, epoch)");
+            assertEquals(5, chains.messageKeyDerivations() - messageKeysBefore,
+                    "one message key per message for a group of " + groupSize);
+        }
+    }
+
+    @Test
+    void sendMessage_announcesNewChainsInGroupsOnly() {
+        AppUser userA = appUserRepository.save(TestDataFactory.createRandomUser());
+        AppUser userB = appUserRepository.save(TestDataFactory.createRandomUser());
+        Conversation direct = messageService.createConversation(userA.getId(), userB.getId());
+        Conversation group = messageService.createGroupConversation("Group", List.of(userA.getId(), userB.getId()));
+
+        messageService.sendMessage(direct.getId(), userA.getId(), "one");
+        messageService.sendMessage(group.getId(), userA.getId(), "one");
+        messageService.sendMessage(group.getId(), userA.getId(), "two");
+
+        assertEquals(List.of("message"), eventTypes(direct.getId()));
+        // recorded in the sending transaction, ahead of the message it precedes
+        assertEquals(List.of("sender_key", "message", "message"), eventTypes(group.getId()));
+    }
+
+    private List<String> eventTypes(Long conversationId) {
+        return eventRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc(conversationId, 0L, PageRequest.of(0, 50))
+                .stream().map(Event::getType).toList();
+    }
+
+    @Test
+    void rotateSenderKeys_startsNewChainAndOldMessagesStayReadable() {
+        AppUser userA = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser userB = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(userA.getId(), userB.getId());
+        messageService.sendMessage(conv.getId(), userA.getId(), "before");
+        long chainsBefore = crypto.senderKeys().chainDerivations();
+
+        assertEquals(1, messageService.rotateSenderKeys(conv.getId()).getSenderKeyEpoch());
+        messageService.sendMessage(conv.getId(), userA.getId(), "after");
+
+        assertEquals(1, crypto.senderKeys().chainDerivations() - chainsBefore);
+        List<String> bodies = messageService.listMessages(conv.getId(), null, 10).messages().stream()
+                .map(MessageService.MessageView::body).toList();
+        assertEquals(List.of("before", "after"), bodies);
+    }
 }
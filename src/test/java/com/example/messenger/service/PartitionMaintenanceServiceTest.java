@@ -0,0 +1,54 @@
+package com.example.messenger.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PartitionMaintenanceServiceTest {
+
+    @Test
+    void partitionName_matchesMigrationNaming() {
+        assertEquals("message_p2026_01", PartitionMaintenanceService.partitionName("message", YearMonth.of(2026, 1)));
+        assertEquals("event_p2025_12", PartitionMaintenanceService.partitionName("event", YearMonth.of(2025, 12)));
+    }
+
+    @Test
+    void createStatements_createsPartitionDirectlyWhenDefaultHasNoRowsInRange() {
+        assertEquals(List.of("CREATE TABLE IF NOT EXISTS message_p2026_01 PARTITION OF message "
+                        + "FOR VALUES FROM ('2026-01-01') TO ('2026-02-01')"),
+                PartitionMaintenanceService.createStatements("message", YearMonth.of(2026, 1), false));
+    }
+
+    @Test
+    void createStatements_movesRowsOutOfDetachedDefaultPartition() {
+        assertEquals(List.of(
+                        "ALTER TABLE event DETACH PARTITION event_default",
+                        "CREATE TABLE IF NOT EXISTS event_p2026_12 PARTITION OF event "
+                                + "FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')",
+                        "INSERT INTO event_p2026_12 SELECT * FROM event_default "
+                                + "WHERE created_at >= '2026-12-01' AND created_at < '2027-01-01'",
+                        "DELETE FROM event_default WHERE created_at >= '2026-12-01' AND created_at < '2027-01-01'",
+                        "ALTER TABLE event ATTACH PARTITION event_default DEFAULT"),
+                PartitionMaintenanceService.createStatements("event", YearMonth.of(2026, 12), true));
+    }
+
+    @Test
+    void parsePartitionMonth_roundTripsPartitionName() {
+        YearMonth month = YearMonth.of(2026, 10);
+        String name = PartitionMaintenanceService.partitionName("event", month);
+
+        assertEquals(month, PartitionMaintenanceService.parsePartitionMonth("event", name));
+    }
+
+    @Test
+    void parsePartitionMonth_ignoresDefaultAndForeignPartitions() {
+        assertNull(PartitionMaintenanceService.parsePartitionMonth("event", "event_default"));
+        assertNull(PartitionMaintenanceService.parsePartitionMonth("event", "message_p2026_01"));
+        assertNull(PartitionMaintenanceService.parsePartitionMonth("event", "event_p2026_13"));
+        assertNull(PartitionMaintenanceService.parsePartitionMonth("event", null));
+    }
+}
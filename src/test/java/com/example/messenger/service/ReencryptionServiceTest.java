@@ -0,0 +1,167 @@
+package com.example.messenger.service;
+
+import com.example.messenger.TestConfig;
+import com.example.messenger.TestDataFactory;
+import com.example.messenger.config.CryptoConfig;
+import com.example.messenger.config.ReencryptionConfig;
+import com.example.messenger.crypto.AesGcmMessageCrypto;
+import com.example.messenger.crypto.Ed448MessageCrypto;
+import com.example.messenger.crypto.KeyRing;
+import com.example.messenger.domain.AppUser;
+import com.example.messenger.domain.Conversation;
+import com.example.messenger.domain.Message;
+import com.example.messenger.domain.ReencryptionCheckpoint;
+import com.example.messenger.repository.AppUserRepository;
+import com.example.messenger.repository.MessageRepository;
+import com.example.messenger.repository.ReencryptionCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReencryptionService moves messages written under the old key onto the active key, checkpoints its
+ * progress, and is idle once done.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@Transactional
+class ReencryptionServiceTest {
+
+    private static final byte[] NEW_KEY = "rotated-master-key-of-at-least-thirty-two-bytes".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ReencryptionCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private CryptoConfig cryptoConfig;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void reencryptBatches_movesOldBodiesToActiveKeyAndCheckpoints() {
+        AppUser alice = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser bob = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(alice.getId(), bob.getId());
+        Message first = messageService.sendMessage(conv.getId(), alice.getId(), "msg-0");
+        for (int i = 1; i < 5; i++) {
+            messageService.sendMessage(conv.getId(), alice.getId(), "msg-" + i);
+        }
+        startCheckpointBefore(2, first);
+        AesGcmMessageCrypto rotated = new AesGcmMessageCrypto(new KeyRing(Map.of(
+                1, Base64.getDecoder().decode(cryptoConfig.getMasterKey()),
+                2, NEW_KEY), 2), 16, new Ed448MessageCrypto(), null, Integer.MAX_VALUE);
+        ReencryptionConfig config = new ReencryptionConfig();
+        config.setBatchSize(2);
+        config.setMaxRowsPerSecond(0);
+        ReencryptionService service = new ReencryptionService(messageRepository, checkpointRepository, rotated,
+                config, transactionManager, new SimpleMeterRegistry());
+
+        int rewritten = service.reencryptBatches();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(5, rewritten);
+        List<Message> stored = messageRepository.findByConversationIdAndDeletedAtIsNullOrderByCreatedAtAsc(conv.getId());
+        for (int i = 0; i < stored.size(); i++) {
+            assertFalse(rotated.needsReencryption(stored.get(i).getBody()));
+            assertEquals("msg-" + i, rotated.decryptBytes(conv.getId(), stored.get(i).getBody()));
+        }
+        ReencryptionCheckpoint checkpoint = checkpointRepository.findById(2).orElseThrow();
+        assertTrue(checkpoint.isCompleted());
+        assertEquals(5L, checkpoint.getRewritten());
+        assertEquals(0, service.reencryptBatches());
+    }
+
+    @Test
+    void reencryptBatches_resumesFromCheckpointAcrossRuns() {
+        AppUser alice = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser bob = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(alice.getId(), bob.getId());
+        Message first = messageService.sendMessage(conv.getId(), bob.getId(), "msg-0");
+        for (int i = 1; i < 4; i++) {
+            messageService.sendMessage(conv.getId(), bob.getId(), "msg-" + i);
+        }
+        startCheckpointBefore(3, first);
+        AesGcmMessageCrypto rotated = new AesGcmMessageCrypto(new KeyRing(Map.of(
+                1, Base64.getDecoder().decode(cryptoConfig.getMasterKey()),
+                3, NEW_KEY), 3), 16, new Ed448MessageCrypto(), null, Integer.MAX_VALUE);
+        ReencryptionConfig config = new ReencryptionConfig();
+        config.setBatchSize(2);
+        config.setMaxBatchesPerRun(1);
+        config.setMaxRowsPerSecond(0);
+        ReencryptionService service = new ReencryptionService(messageRepository, checkpointRepository, rotated,
+                config, transactionManager, new SimpleMeterRegistry());
+
+        assertEquals(2, service.reencryptBatches());
+        assertFalse(checkpointRepository.findById(3).orElseThrow().isCompleted());
+        assertEquals(2, service.reencryptBatches());
+        assertEquals(0, service.reencryptBatches());
+        assertTrue(checkpointRepository.findById(3).orElseThrow().isCompleted());
+    }
+
+    @Test
+    void reencryptBatches_skipsUndecryptableBodyAndDoesNotComplete() {
+        AppUser alice = appUserRepository.save(TestDataFactory.createUser("alice"));
+        AppUser bob = appUserRepository.save(TestDataFactory.createUser("bob"));
+        Conversation conv = messageService.createConversation(alice.getId(), bob.getId());
+        Message first = messageService.sendMessage(conv.getId(), alice.getId(), "msg-0");
+        Message corrupt = messageService.sendMessage(conv.getId(), alice.getId(), "msg-1");
+        messageService.sendMessage(conv.getId(), alice.getId(), "msg-2");
+        byte[] garbage = corrupt.getBody().clone();
+        garbage[garbage.length - 1] ^= 1;
+        assertEquals(1, messageRepository.replaceBody(corrupt.getId(), corrupt.getBody(), garbage));
+        startCheckpointBefore(4, first);
+        AesGcmMessageCrypto rotated = new AesGcmMessageCrypto(new KeyRing(Map.of(
+                1, Base64.getDecoder().decode(cryptoConfig.getMasterKey()),
+                4, NEW_KEY), 4), 16, new Ed448MessageCrypto(), null, Integer.MAX_VALUE);
+        ReencryptionConfig config = new ReencryptionConfig();
+        config.setBatchSize(10);
+        config.setMaxRowsPerSecond(0);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReencryptionService service = new ReencryptionService(messageRepository, checkpointRepository, rotated,
+                config, transactionManager, meterRegistry);
+
+        assertEquals(2, service.reencryptBatches());
+        ReencryptionCheckpoint checkpoint = checkpointRepository.findById(4).orElseThrow();
+        // the corrupt body still needs key 1, so the old key must not look safe to drop
+        assertFalse(checkpoint.isCompleted());
+        assertEquals(1L, checkpoint.getFailed());
+        assertEquals(1.0, meterRegistry.get("messenger.crypto.reencryption.failed").counter().count());
+        assertEquals(0, service.reencryptBatches());
+        assertFalse(checkpointRepository.findById(4).orElseThrow().isCompleted());
+    }
+
+    /** Skips rows committed by other test classes sharing the database. */
+    private void startCheckpointBefore(int keyId, Message first) {
+        ReencryptionCheckpoint checkpoint = new ReencryptionCheckpoint(keyId);
+        checkpoint.advance(first.getId() - 1, 0);
+        checkpointRepository.save(checkpoint);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.messenger.service;
+
+import com.example.messenger.domain.Event;
+import com.example.messenger.domain.RefreshToken;
+import com.example.messenger.repository.EventRepository;
+import com.example.messenger.repository.MessageIdempotencyClaimRepository;
+import com.example.messenger.repository.RefreshTokenRepository;
+import com.example.messenger.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RetentionService deletes only rows past their TTL and leaves live rows untouched.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@Transactional
+class RetentionServiceTest {
+
+    @Autowired
+    private RetentionService retentionService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private MessageIdempotencyClaimRepository idempotencyClaimRepository;
+
+    @Test
+    void purgeEvents_deletesOnlyEventsOlderThanTtl() throws Exception {
+        Event old = new Event(1L, "message", "{}");
+        setField(old, "createdAt", Instant.now().minus(Duration.ofDays(40)));
+        eventRepository.save(old);
+        Event fresh = eventRepository.save(new Event(1L, "message", "{}"));
+
+        int purged = retentionService.purgeEvents(Instant.now());
+
+        assertEquals(1, purged);
+        List<Event> remaining = eventRepository.findAll();
+        assertEquals(1, remaining.size());
+        assertEquals(fresh.getId(), remaining.get(0).getId());
+    }
+
+    @Test
+    void purgeRefreshTokens_deletesExpiredAndRevokedTokens() {
+        Instant now = Instant.now();
+        refreshTokenRepository.save(new RefreshToken(1L, "expired", now.minus(Duration.ofDays(3))));
+        RefreshToken revoked = new RefreshToken(2L, "revoked", now.plus(Duration.ofDays(3)));
+        revoked.setRevoked(true);
+        refreshTokenRepository.save(revoked);
+        refreshTokenRepository.save(new RefreshToken(3L, "expired-within-grace", now.minus(Duration.ofMinutes(5))));
+        refreshTokenRepository.save(new RefreshToken(4L, "valid", now.plus(Duration.ofDays(3))));
+
+        int purged = retentionService.purgeRefreshTokens(now);
+
+        assertEquals(2, purged);
+        assertTrue(refreshTokenRepository.findByToken("expired").isEmpty());
+        assertTrue(refreshTokenRepository.findByToken("revoked").isEmpty());
+        assertTrue(refreshTokenRepository.findByToken("expired-within-grace").isPresent());
+        assertTrue(refreshTokenRepository.findByToken("valid").isPresent());
+    }
+
+    @Test
+    void purgeIdempotencyClaims_deletesOnlyClaimsOlderThanTtl() {
+        Instant now = Instant.now();
+        idempotencyClaimRepository.claim(1L, "old", now.minus(Duration.ofDays(8)));
+        idempotencyClaimRepository.claim(1L, "fresh", now.minus(Duration.ofDays(1)));
+
+        int purged = retentionService.purgeIdempotencyClaims(now);
+
+        assertEquals(1, purged);
+        assertEquals(0, idempotencyClaimRepository.claim(1L, "fresh", now));
+        assertEquals(1, idempotencyClaimRepository.claim(1L, "old", now));
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.messenger.service;
+
+import com.example.messenger.config.WebSocketSessionConfig;
+import com.example.messenger.websocket.RegisteredSession;
+import com.example.messenger.websocket.SessionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * SessionHeartbeatService pings live sessions and evicts closed or silent ones.
+ */
+class SessionHeartbeatServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SessionRegistry registry;
+    private WebSocketSessionConfig config;
+    private SessionHeartbeatService heartbeatService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        config = new WebSocketSessionConfig();
+        config.setIdleTimeoutMs(1000);
+        registry = new SessionRegistry(config, meterRegistry);
+        heartbeatService = new SessionHeartbeatService(registry, config, meterRegistry);
+    }
+
+    @Test
+    void heartbeat_pingsLiveSessionsAndReapsSilentAndClosedOnes() throws Exception {
+        long now = System.currentTimeMillis();
+        WebSocketSession live = delegate("live", true);
+        WebSocketSession silent = delegate("silent", true);
+        WebSocketSession closed = delegate("closed", false);
+        registry.register(session(1L, live));
+        RegisteredSession silentSession = session(1L, silent);
+        silentSession.touch(now - 5000);
+        registry.register(silentSession);
+        registry.register(session(2L, closed));
+
+        int reaped = heartbeatService.heartbeat(now);
+
+        assertEquals(2, reaped);
+        assertEquals(1, registry.getConnectionCount());
+        verify(live).sendMessage(any(PingMessage.class));
+        verify(silent, never()).sendMessage(any());
+        verify(silent).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(2.0, meterRegistry.get("messenger.websocket.sessions.reaped").counter().count());
+    }
+
+    @Test
+    void heartbeat_touchKeepsSessionAlive() {
+        long now = System.currentTimeMillis();
+        RegisteredSession session = session(1L, delegate("s1", true));
+        session.touch(now - 5000);
+        registry.register(session);
+
+        registry.touch(1L, "s1", now);
+
+        assertEquals(0, heartbeatService.heartbeat(now));
+        assertEquals(1, registry.getConnectionCount());
+    }
+
+    private static WebSocketSession delegate(String id, boolean open) {
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn(id);
+        when(delegate.isOpen()).thenReturn(open);
+        return delegate;
+    }
+
+    private static RegisteredSession session(Long userId, WebSocketSession delegate) {
+        return new RegisteredSession(userId, delegate, 1000, 1024, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.messenger.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * BinaryEventCodec round-trips event frames and embeds the payload as raw JSON.
+ */
+class BinaryEventCodecTest {
+
+    @Test
+    void encodeDecode_roundTrips() {
+        Instant createdAt = Instant.parse("2026-03-01T10:15:30.123Z");
+        byte[] payload = "{\"body\":\"héllo \\\"quoted\\\"\"}".getBytes(StandardCharsets.UTF_8);
+
+        byte[] encoded = BinaryEventCodec.encode(11L, 22L, createdAt, "message", payload);
+        BinaryEventCodec.Frame frame = BinaryEventCodec.decode(ByteBuffer.wrap(encoded));
+
+        assertEquals(11L, frame.eventId());
+        assertEquals(22L, frame.conversationId());
+        assertEquals(createdAt, frame.createdAt());
+        assertEquals("message", frame.type());
+        assertArrayEquals(payload, frame.payloadJson());
+        assertEquals(1 + 8 + 8 + 8 + 2 + "message".length() + 4 + payload.length, encoded.length);
+    }
+
+    @Test
+    void decode_rejectsUnknownVersion() {
+        byte[] encoded = BinaryEventCodec.encode(1L, 2L, Instant.EPOCH, "t", new byte[0]);
+        encoded[0] = 9;
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryEventCodec.decode(ByteBuffer.wrap(encoded)));
+    }
+
+    @Test
+    void fromSubprotocol_defaultsToJson() {
+        assertEquals(EventWireFormat.BINARY, EventWireFormat.fromSubprotocol("messenger.v1.bin"));
+        assertEquals(EventWireFormat.JSON, EventWireFormat.fromSubprotocol("messenger.v1.json"));
+        assertEquals(EventWireFormat.JSON_V2, EventWireFormat.fromSubprotocol("messenger.v2.json"));
+        assertEquals(EventWireFormat.JSON, EventWireFormat.fromSubprotocol("messenger.v3.json"));
+        assertEquals(EventWireFormat.JSON, EventWireFormat.fromSubprotocol(null));
+        assertEquals(EventWireFormat.JSON, EventWireFormat.fromSubprotocol(""));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.messenger.websocket;
+
+import com.example.messenger.config.WebSocketCompressionConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * DeflateNegotiationFilter rewrites permessage-deflate offers according to the compression settings
+ * and leaves other extensions alone.
+ */
+class DeflateNegotiationFilterTest {
+
+    private static final String CHROME_OFFER = "permessage-deflate; client_max_window_bits";
+
+    @Test
+    void rewrite_keepsOfferUnchangedWithDefaults() {
+        DeflateNegotiationFilter filter = new DeflateNegotiationFilter(new WebSocketCompressionConfig());
+
+        assertEquals(List.of(CHROME_OFFER), filter.rewrite(List.of(CHROME_OFFER)));
+    }
+
+    @Test
+    void rewrite_dropsDeflateWhenDisabled() {
+        WebSocketCompressionConfig config = new WebSocketCompressionConfig();
+        config.setEnabled(false);
+        DeflateNegotiationFilter filter = new DeflateNegotiationFilter(config);
+
+        assertEquals(List.of("x-other"), filter.rewrite(List.of(CHROME_OFFER + ", x-other")));
+    }
+
+    @Test
+    void rewrite_addsNoContextTakeoverParametersOnce() {
+        WebSocketCompressionConfig config = new WebSocketCompressionConfig();
+        config.setServerNoContextTakeover(true);
+        config.setClientNoContextTakeover(true);
+        DeflateNegotiationFilter filter = new DeflateNegotiationFilter(config);
+
+        assertEquals(
+                List.of(CHROME_OFFER + "; server_no_context_takeover; client_no_context_takeover",
+                        "permessage-deflate; server_no_context_takeover; client_no_context_takeover"),
+                filter.rewrite(List.of(CHROME_OFFER, "permessage-deflate; server_no_context_takeover")));
+    }
+}
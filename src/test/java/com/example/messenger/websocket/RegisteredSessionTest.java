@@ -0,0 +1,183 @@
+package com.example.messenger.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * RegisteredSession reports the write time of stamped frames, whatever order they are written in, and
+ * keeps its outbox within the session limits.
+ */
+class RegisteredSessionTest {
+
+    @Test
+    void sendMessage_reportsWrittenStampForFrame() throws Exception {
+        List<DeliveryStamp> written = new ArrayList<>();
+        RegisteredSession session = new RegisteredSession(1L, delegate(), (stamp, nanos) -> written.add(stamp),
+                1000, 1024, OverflowStrategy.TERMINATE);
+        TextMessage frame = new TextMessage("{}");
+        DeliveryStamp stamp = new DeliveryStamp(frame, System.nanoTime(), System.nanoTime(), "GROUP");
+
+        session.expect(stamp);
+        session.sendMessage(frame);
+
+        assertEquals(1, written.size());
+        assertSame(stamp, written.get(0));
+    }
+
+    @Test
+    void sendMessage_skipsStampsOfFramesThatWereNeverWritten() throws Exception {
+        List<DeliveryStamp> written = new ArrayList<>();
+        RegisteredSession session = new RegisteredSession(1L, delegate(), (stamp, nanos) -> written.add(stamp),
+                1000, 1024, OverflowStrategy.TERMINATE);
+        TextMessage dropped = new TextMessage("{\"n\":1}");
+        TextMessage sent = new TextMessage("{\"n\":2}");
+        DeliveryStamp sentStamp = new DeliveryStamp(sent, 0, 0, "ONE_TO_ONE");
+
+        session.expect(new DeliveryStamp(dropped, 0, 0, "ONE_TO_ONE"));
+        session.expect(sentStamp);
+        session.sendMessage(sent);
+
+        assertEquals(List.of(sentStamp), written);
+    }
+
+    @Test
+    void sendMessage_unstampedAndOutOfOrderFramesKeepOtherStamps() throws Exception {
+        List<DeliveryStamp> written = new ArrayList<>();
+        RegisteredSession session = new RegisteredSession(1L, delegate(), (stamp, nanos) -> written.add(stamp),
+                1000, 1024, OverflowStrategy.TERMINATE);
+        TextMessage first = new TextMessage("{\"n\":1}");
+        TextMessage second = new TextMessage("{\"n\":2}");
+        DeliveryStamp firstStamp = new DeliveryStamp(first, 0, 0, "GROUP");
+        DeliveryStamp secondStamp = new DeliveryStamp(second, 0, 0, "GROUP");
+
+        session.expect(firstStamp);
+        session.expect(secondStamp);
+        session.sendMessage(new PingMessage());
+        session.sendMessage(second);
+        session.sendMessage(first);
+
+        assertEquals(List.of(secondStamp, firstStamp), written);
+    }
+
+    @Test
+    void sendInOrder_runsQueuedSendsOnOneWriterInSubmissionOrder() throws Exception {
+        RegisteredSession session = new RegisteredSession(1L, delegate(), 1000, 1024, OverflowStrategy.TERMINATE);
+        List<Runnable> writers = new ArrayList<>();
+        List<Integer> sent = new ArrayList<>();
+
+        session.sendInOrder(() -> sent.add(1), 10, writers::add);
+        session.sendInOrder(() -> sent.add(2), 10, writers::add);
+        session.sendInOrder(() -> sent.add(3), 10, writers::add);
+        assertEquals(1, writers.size());
+        writers.get(0).run();
+
+        assertEquals(List.of(1, 2, 3), sent);
+        session.sendInOrder(() -> sent.add(4), 10, Runnable::run);
+        assertEquals(List.of(1, 2, 3, 4), sent);
+    }
+
+    @Test
+    void sendInOrder_rejectsSendsBeyondTheBufferLimitAndClearsTheOutbox() throws Exception {
+        RegisteredSession session = new RegisteredSession(1L, delegate(), 1000, 1024, OverflowStrategy.TERMINATE);
+        List<Runnable> writers = new ArrayList<>();
+        List<Integer> sent = new ArrayList<>();
+
+        session.sendInOrder(() -> sent.add(1), 600, writers::add);
+        session.sendInOrder(() -> sent.add(2), 400, writers::add);
+        assertThrows(SessionLimitExceededException.class, () -> session.sendInOrder(() -> sent.add(3), 100, writers::add));
+        writers.get(0).run();
+
+        assertEquals(List.of(), sent);
+    }
+
+    @Test
+    void sendInOrder_dropStrategyDiscardsOldestQueuedSends() throws Exception {
+        RegisteredSession session = new RegisteredSession(1L, delegate(), 1000, 1024, OverflowStrategy.DROP);
+        List<Runnable> writers = new ArrayList<>();
+        List<Integer> sent = new ArrayList<>();
+
+        session.sendInOrder(() -> sent.add(1), 600, writers::add);
+        session.sendInOrder(() -> sent.add(2), 400, writers::add);
+        session.sendInOrder(() -> sent.add(3), 500, writers::add);
+        writers.get(0).run();
+
+        assertEquals(List.of(2, 3), sent);
+    }
+
+    @Test
+    void sendInOrder_rejectsSendsWhileTheCurrentWriteIsOverTheTimeLimit() throws Exception {
+        RegisteredSession session = new RegisteredSession(1L, delegate(), 10, 1024, OverflowStrategy.TERMINATE);
+        List<Runnable> writers = new ArrayList<>();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        session.sendInOrder(() -> {
+            writing.countDown();
+            awaitQuietly(release);
+        }, 10, writers::add);
+        Thread writer = new Thread(writers.get(0));
+        writer.start();
+
+        try {
+            writing.await();
+            Thread.sleep(50);
+            assertThrows(SessionLimitExceededException.class, () -> session.sendInOrder(() -> { }, 10, Runnable::run));
+        } finally {
+            release.countDown();
+            writer.join();
+        }
+    }
+
+    @Test
+    void sendInOrder_failedSendDoesNotStopTheWriter() throws Exception {
+        RegisteredSession session = new RegisteredSession(1L, delegate(), 1000, 1024, OverflowStrategy.TERMINATE);
+        List<Integer> sent = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> session.sendInOrder(() -> {
+            throw new IllegalStateException("boom");
+        }, 10, Runnable::run));
+        session.sendInOrder(() -> sent.add(2), 10, Runnable::run);
+
+        assertEquals(List.of(2), sent);
+    }
+
+    @Test
+    void sendMessage_withoutListenerIgnoresStamps() throws Exception {
+        RegisteredSession session = new RegisteredSession(1L, delegate(), 1000, 1024, OverflowStrategy.TERMINATE);
+        TextMessage frame = new TextMessage("{}");
+
+        session.expect(new DeliveryStamp(frame, 0, 0, "GROUP"));
+        session.sendMessage(frame);
+
+        assertTrue(session.isOpen());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static WebSocketSession delegate() {
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn("s1");
+        when(delegate.isOpen()).thenReturn(true);
+        return delegate;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.messenger.websocket;
+
+import com.example.messenger.config.WebSocketSessionConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * SessionRegistry keeps connection, user and per-user counts in step with register/unregister.
+ */
+class SessionRegistryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new SessionRegistry(new WebSocketSessionConfig(), meterRegistry);
+    }
+
+    @Test
+    void countsConnectionsUsersAndMaxSessionsPerUser() {
+        registry.register(session(1L, "a"));
+        registry.register(session(1L, "b"));
+        registry.register(session(1L, "c"));
+        registry.register(session(2L, "d"));
+
+        assertEquals(4, registry.getConnectionCount());
+        assertEquals(2, registry.getUserCount());
+        assertEquals(3, registry.getMaxSessionsPerUser());
+        assertEquals(3, registry.sessionsFor(1L).size());
+
+        registry.unregister(1L, "a");
+        registry.unregister(1L, "b");
+
+        assertEquals(2, registry.getConnectionCount());
+        assertEquals(2, registry.getUserCount());
+        assertEquals(1, registry.getMaxSessionsPerUser());
+
+        registry.unregister(1L, "c");
+        registry.unregister(2L, "d");
+
+        assertEquals(0, registry.getConnectionCount());
+        assertEquals(0, registry.getUserCount());
+        assertEquals(0, registry.getMaxSessionsPerUser());
+        assertTrue(registry.sessionsFor(1L).isEmpty());
+        assertEquals(4.0, meterRegistry.get("messenger.websocket.connects").counter().count());
+        assertEquals(4.0, meterRegistry.get("messenger.websocket.disconnects").counter().count());
+    }
+
+    @Test
+    void duplicateRegisterAndUnknownUnregisterAreIgnored() {
+        RegisteredSession s = session(1L, "a");
+        registry.register(s);
+        registry.register(s);
+        registry.unregister(1L, "missing");
+        registry.unregister(99L, "a");
+
+        assertEquals(1, registry.getConnectionCount());
+        assertEquals(1, registry.getUserCount());
+        assertEquals(1, registry.getMaxSessionsPerUser());
+    }
+
+    @Test
+    void maxSessionsPerUserIsCappedAtTrackedBucket() {
+        for (int i = 0; i < SessionRegistry.MAX_TRACKED_SESSIONS_PER_USER + 5; i++) {
+            registry.register(session(1L, "s" + i));
+        }
+
+        assertEquals(SessionRegistry.MAX_TRACKED_SESSIONS_PER_USER, registry.getMaxSessionsPerUser());
+
+        for (int i = 0; i < SessionRegistry.MAX_TRACKED_SESSIONS_PER_USER + 5; i++) {
+            registry.unregister(1L, "s" + i);
+        }
+        assertEquals(0, registry.getMaxSessionsPerUser());
+    }
+
+    private static RegisteredSession session(Long userId, String id) {
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn(id);
+        return new RegisteredSession(userId, delegate, 1000, 1024, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+    }
+}